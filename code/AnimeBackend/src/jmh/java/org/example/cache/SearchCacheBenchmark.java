@@ -0,0 +1,94 @@
+package org.example.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Read-heavy (90% get / 10% put) throughput of the concurrent {@link SearchCache}
+ * against the old synchronized LinkedHashMap cache. Run with
+ * {@code mvn -Pbenchmark compile exec:exec}; every thread count from 1 to 64 is
+ * measured in turn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchCacheBenchmark {
+    private static final int MAX_SIZE = 100;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    @Param({"200"})
+    private int keySpace;
+
+    private String[] keys;
+    private SearchCache searchCache;
+    private SynchronizedSearchCache synchronizedCache;
+
+    @Setup
+    public void setUp() {
+        keys = new String[keySpace];
+        for (int i = 0; i < keySpace; i++) {
+            keys[i] = i % 2 == 0 ? "country_" + i : "cities_country_" + i;
+        }
+        searchCache = new SearchCache(MAX_SIZE, Weigher.singleton());
+        synchronizedCache = new SynchronizedSearchCache(MAX_SIZE);
+        for (String key : keys) {
+            searchCache.put(key, key);
+            synchronizedCache.put(key, key);
+        }
+    }
+
+    @Benchmark
+    public Object concurrentTinyLfu() {
+        String key = nextKey();
+        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+            searchCache.put(key, key);
+            return key;
+        }
+        return searchCache.get(key);
+    }
+
+    @Benchmark
+    public Object synchronizedLru() {
+        String key = nextKey();
+        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+            synchronizedCache.put(key, key);
+            return key;
+        }
+        return synchronizedCache.get(key);
+    }
+
+    private String nextKey() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // skew towards the low ids, like the hot all_countries / country_{id} keys
+        int index = Math.min(random.nextInt(keySpace), random.nextInt(keySpace));
+        return keys[index];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(SearchCacheBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
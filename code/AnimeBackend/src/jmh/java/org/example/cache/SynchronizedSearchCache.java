@@ -0,0 +1,35 @@
+package org.example.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The original single-monitor {@code SearchCache}, kept only as the baseline for
+ * {@link SearchCacheBenchmark}.
+ */
+class SynchronizedSearchCache {
+    private final int maxSize;
+    private final Map<String, Object> cache;
+
+    SynchronizedSearchCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > SynchronizedSearchCache.this.maxSize;
+            }
+        };
+    }
+
+    public synchronized void put(String key, Object value) {
+        cache.put(key, value);
+    }
+
+    public synchronized Object get(String key) {
+        return cache.get(key);
+    }
+
+    public synchronized boolean containsKey(String key) {
+        return cache.containsKey(key);
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.logs;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Reading one day out of a generated multi-day log: a {@link LogIndex} lookup and a
+ * {@code transferTo} of its range, against filtering every line with
+ * {@code Files.lines} and joining them into a string as the export used to. Run with
+ * {@code mvn -Pbenchmark compile exec:exec} and
+ * {@code -Dbenchmark.main=org.example.logs.LogQueryBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogQueryBenchmark {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 4, 1);
+
+    @Param({"20"})
+    private int days;
+
+    @Param({"50000"})
+    private int linesPerDay;
+
+    private Path file;
+    private LogIndex index;
+    private LocalDate day;
+    private String prefix;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("application", ".log");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int d = 0; d < days; d++) {
+                String date = FIRST_DAY.plusDays(d).toString();
+                for (int i = 0; i < linesPerDay; i++) {
+                    writer.write(date + " 12:00:00 | INFO  | org.example.service.CountryService"
+                            + " - ✅ Retrieved " + i + " countries\n");
+                }
+            }
+        }
+        index = new LogIndex(file);
+        day = FIRST_DAY.plusDays(days / 2);
+        prefix = day.toString();
+        index.find(day);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long indexedTransfer() throws IOException {
+        long length = 0;
+        for (LogRange range : index.find(day)) {
+            range.transferTo(OutputStream.nullOutputStream());
+            length += range.length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int lineScan() throws IOException {
+        try (Stream<String> lines = Files.lines(file)) {
+            return lines.filter(line -> line.startsWith(prefix))
+                    .collect(Collectors.joining("\n"))
+                    .length();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LogQueryBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
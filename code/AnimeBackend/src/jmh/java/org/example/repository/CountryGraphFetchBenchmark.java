@@ -0,0 +1,170 @@
+package org.example.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Rows and time for loading the whole country graph the old way, with cities and
+ * nations join-fetched in one query, against the per-collection queries behind
+ * {@link CountryRepository#findAllWithCitiesAndNations()}. Runs the SQL Hibernate
+ * generates for both straight over JDBC, on a seeded copy of the tables in a scratch
+ * {@code fetch_benchmark} schema of the database named by {@code DATABASE_URL},
+ * {@code DATABASE_USERNAME} and {@code DATABASE_PASSWORD}. Row counts are printed
+ * during setup. Run with {@code mvn -Pbenchmark compile exec:exec} and
+ * {@code -Dbenchmark.main=org.example.repository.CountryGraphFetchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CountryGraphFetchBenchmark {
+    private static final String SCHEMA = "fetch_benchmark";
+    private static final int NATIONS = 100;
+
+    private static final String COUNTRY_COLUMNS =
+            "c.id, c.name, c.capital, c.population, c.area, c.gdp";
+    private static final String CITY_JOIN = " LEFT JOIN city ci ON ci.country_id = c.id";
+    private static final String NATION_JOIN = " LEFT JOIN country_nations cn"
+            + " ON cn.country_id = c.id LEFT JOIN nation n ON n.id = cn.nation_id";
+    private static final String CARTESIAN = "SELECT " + COUNTRY_COLUMNS
+            + ", n.id, n.name, n.language, n.religion"
+            + ", ci.id, ci.name, ci.population, ci.area, ci.country_id"
+            + " FROM country c" + NATION_JOIN + CITY_JOIN;
+    private static final String CITIES = "SELECT " + COUNTRY_COLUMNS
+            + ", ci.id, ci.name, ci.population, ci.area, ci.country_id"
+            + " FROM country c" + CITY_JOIN;
+    private static final String NATIONS_OF_COUNTRIES = "SELECT " + COUNTRY_COLUMNS
+            + ", n.id, n.name, n.language, n.religion"
+            + " FROM country c" + NATION_JOIN;
+
+    @Param({"200"})
+    private int countries;
+
+    @Param({"50"})
+    private int citiesPerCountry;
+
+    @Param({"10"})
+    private int nationsPerCountry;
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        if (nationsPerCountry > NATIONS) {
+            throw new IllegalArgumentException("At most " + NATIONS + " nations per country");
+        }
+        connection = DriverManager.getConnection(System.getenv("DATABASE_URL"),
+                System.getenv("DATABASE_USERNAME"), System.getenv("DATABASE_PASSWORD"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            statement.execute("CREATE SCHEMA " + SCHEMA);
+            statement.execute("SET search_path TO " + SCHEMA);
+            statement.execute("CREATE TABLE country (id bigint PRIMARY KEY, name varchar(255),"
+                    + " capital varchar(255), population float8, area float8, gdp float8)");
+            statement.execute("CREATE TABLE nation (id bigint PRIMARY KEY, name varchar(255),"
+                    + " language varchar(255), religion varchar(255))");
+            statement.execute("CREATE TABLE city (id bigint PRIMARY KEY, name varchar(255),"
+                    + " population float8, area float8, country_id bigint REFERENCES country)");
+            statement.execute("CREATE TABLE country_nations ("
+                    + "country_id bigint REFERENCES country, nation_id bigint REFERENCES nation,"
+                    + " PRIMARY KEY (country_id, nation_id))");
+            statement.execute("CREATE INDEX ON city (country_id)");
+        }
+        seed("INSERT INTO country SELECT g, 'Country ' || g, 'Capital ' || g,"
+                + " g * 1000.0, g * 10.0, g * 1000000.0 FROM generate_series(1, ?) g",
+                countries);
+        seed("INSERT INTO nation SELECT g, 'Nation ' || g, 'Language ' || g,"
+                + " 'Religion ' || g FROM generate_series(1, ?) g", NATIONS);
+        seed("INSERT INTO city SELECT (c - 1) * ? + k, 'City ' || c || '-' || k,"
+                + " k * 100.0, k * 1.0, c"
+                + " FROM generate_series(1, ?) c, generate_series(1, ?) k",
+                citiesPerCountry, countries, citiesPerCountry);
+        seed("INSERT INTO country_nations SELECT c, (c + k) % ? + 1"
+                + " FROM generate_series(1, ?) c, generate_series(1, ?) k",
+                NATIONS, countries, nationsPerCountry);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE country, nation, city, country_nations");
+        }
+        long cartesian = read(CARTESIAN, null);
+        long perCollection = read(CITIES, null) + read(NATIONS_OF_COUNTRIES, null);
+        System.out.printf("%n%d countries, %d cities and %d nations each:"
+                        + " cartesian fetch %d rows, per-collection fetch %d rows%n",
+                countries, citiesPerCountry, nationsPerCountry, cartesian, perCollection);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public long cartesianFetch(Blackhole blackhole) throws SQLException {
+        return read(CARTESIAN, blackhole);
+    }
+
+    @Benchmark
+    public long perCollectionFetch(Blackhole blackhole) throws SQLException {
+        return read(CITIES, blackhole) + read(NATIONS_OF_COUNTRIES, blackhole);
+    }
+
+    private void seed(String sql, int... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setInt(i + 1, parameters[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    private long read(String sql, Blackhole blackhole) throws SQLException {
+        long rows = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            int columns = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+                rows++;
+                if (blackhole != null) {
+                    for (int column = 1; column <= columns; column++) {
+                        blackhole.consume(resultSet.getObject(column));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CountryGraphFetchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.search;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * City search over a million generated city names: the {@link CityNameIndex} against
+ * a scan of every lower-cased name, which is what {@code LOWER(name) LIKE '%x%'} made
+ * Postgres do. Index build time is printed during setup. Run with
+ * {@code mvn -Pbenchmark compile exec:exec} and
+ * {@code -Dbenchmark.main=org.example.search.CitySearchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class CitySearchBenchmark {
+    private static final String[] SYLLABLES = {
+        "min", "sk", "no", "vo", "grad", "ber", "lin", "ka", "ra", "to", "ma", "pol",
+        "is", "stan", "burg", "ton", "vi", "le", "ri", "a", "mos", "ko", "brest", "go",
+        "mel", "sy", "dor", "fe", "ul", "zan"
+    };
+    private static final int COUNTRIES = 200;
+    private static final int LIMIT = 20;
+
+    @Param({"1000000"})
+    private int cities;
+
+    @Param({"ko", "grad", "minsk", "novogra"})
+    private String query;
+
+    private CityNameIndex index;
+    private String[] names;
+    private long[] countryIds;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        names = new String[cities];
+        countryIds = new long[cities];
+        for (int i = 0; i < cities; i++) {
+            StringBuilder name = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+            names[i] = name.toString();
+            countryIds[i] = 1 + random.nextInt(COUNTRIES);
+        }
+        long start = System.nanoTime();
+        index = new CityNameIndex(cities);
+        for (int i = 0; i < cities; i++) {
+            index.put(i + 1, names[i], countryIds[i]);
+        }
+        System.out.printf("%nIndexed %d cities in %d ms%n", index.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        for (int i = 0; i < cities; i++) {
+            names[i] = names[i].toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Benchmark
+    public List<Long> trigramIndex() {
+        return index.searchCountries(query, LIMIT);
+    }
+
+    @Benchmark
+    public Set<Long> fullScan() {
+        String needle = query.toLowerCase(Locale.ROOT);
+        Set<Long> countries = new HashSet<>();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].contains(needle)) {
+                countries.add(countryIds[i]);
+            }
+        }
+        return countries;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CitySearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.search;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Autocomplete over a million generated names: a {@link PrefixIndex} lookup, and
+ * merging a batch of changed names into a new index the way the update thread does.
+ * Run with {@code mvn -Pbenchmark compile exec:exec} and
+ * {@code -Dbenchmark.main=org.example.search.PrefixIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class PrefixIndexBenchmark {
+    private static final String[] SYLLABLES = {
+        "min", "sk", "no", "vo", "grad", "ber", "lin", "ka", "ra", "to", "ma", "pol",
+        "is", "stan", "burg", "ton", "vi", "le", "ri", "a", "mos", "ko", "brest", "go",
+        "mel", "sy", "dor", "fe", "ul", "zan"
+    };
+    private static final int LIMIT = 10;
+    private static final int CHANGED = 100;
+
+    @Param({"1000000"})
+    private int names;
+
+    @Param({"k", "grad", "minsk"})
+    private String query;
+
+    private PrefixIndex index;
+    private Map<Long, String> changed;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Map<Long, String> all = new HashMap<>();
+        for (long id = 1; id <= names; id++) {
+            all.put(id, name(random));
+        }
+        long start = System.nanoTime();
+        index = PrefixIndex.of(all);
+        System.out.printf("%nIndexed %d keys in %d ms%n", index.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        changed = new HashMap<>();
+        for (int i = 0; i < CHANGED; i++) {
+            changed.put(1L + random.nextInt(names), name(random));
+        }
+    }
+
+    @Benchmark
+    public List<PrefixIndex.Match> top() {
+        return index.top(query, LIMIT);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PrefixIndex update() {
+        return index.update(changed, List.of());
+    }
+
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int s = 0; s < syllables; s++) {
+            if (s > 0 && random.nextInt(6) == 0) {
+                name.append(' ');
+            }
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PrefixIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
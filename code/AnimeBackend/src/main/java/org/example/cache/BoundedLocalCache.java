@@ -0,0 +1,244 @@
+package org.example.cache;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Concurrent, weight-bounded cache engine with W-TinyLFU eviction and per-entry
+ * expiration, shared by {@link SearchCache} and every {@link CacheRegion}. Every
+ * value is weighed once on insert by the configured {@link Weigher} and the policy
+ * evicts until the total fits the budget. Reads go straight to a
+ * {@link ConcurrentHashMap}, check the entry's deadline and only leave a lossy
+ * access hint in a striped buffer; writes are striped by the map and hand their
+ * policy bookkeeping to a write buffer. Both buffers are replayed against the policy
+ * and the {@link TimerWheel} by whichever thread wins the eviction lock, so no
+ * request ever blocks on a lock for a plain lookup.
+ */
+final class BoundedLocalCache<K> {
+    private static final int SKETCH_SIZE = 1024;
+    private static final int WRITE_BUFFER_THRESHOLD = 64;
+
+    private final ConcurrentHashMap<K, CacheEntry<K>> cache = new ConcurrentHashMap<>();
+    private final WindowTinyLfuPolicy<K> policy;
+    private final Weigher weigher;
+    private final TimerWheel timerWheel = new TimerWheel(System.nanoTime());
+    private final StripedReadBuffer<K> readBuffer = new StripedReadBuffer<>();
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    BoundedLocalCache(long maximumWeight, Weigher weigher) {
+        this.weigher = weigher;
+        this.policy = new WindowTinyLfuPolicy<>(maximumWeight,
+                (int) Math.min(maximumWeight, SKETCH_SIZE));
+    }
+
+    void put(K key, Object value, Duration ttl) {
+        put(key, value, ttl, null);
+    }
+
+    /**
+     * Caches {@code value}, running {@code onRemoval} once it leaves the cache for any
+     * reason: replaced, removed, cleared, evicted for size or expired.
+     */
+    void put(K key, Object value, Duration ttl, Runnable onRemoval) {
+        CacheEntry<K> entry = new CacheEntry<>(key, value, weigher.weigh(key, value),
+                System.nanoTime() + ttl.toNanos(), onRemoval);
+        CacheEntry<K> previous = cache.put(key, entry);
+        if (previous != null) {
+            previous.removed();
+        }
+        afterWrite(() -> onWrite(key, entry, previous));
+    }
+
+    Object get(K key) {
+        CacheEntry<K> entry = getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        afterRead(key);
+        return entry.value;
+    }
+
+    /** Nanoseconds until {@code key} expires, or {@code -1} if it is absent. */
+    long remainingNanos(K key) {
+        CacheEntry<K> entry = cache.get(key);
+        return entry == null ? -1L : Math.max(0L, entry.expiresAt - System.nanoTime());
+    }
+
+    boolean containsKey(K key) {
+        return getIfPresent(key) != null;
+    }
+
+    void remove(K key) {
+        CacheEntry<K> removed = cache.remove(key);
+        if (removed != null) {
+            removed.removed();
+            afterWrite(() -> onRemove(key, removed));
+        }
+    }
+
+    void clear() {
+        evictionLock.lock();
+        try {
+            drainBuffers();
+            cache.values().forEach(CacheEntry::removed);
+            cache.clear();
+            policy.clear();
+            timerWheel.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    long weightedSize() {
+        evictionLock.lock();
+        try {
+            drainBuffers();
+            return policy.weightedSize();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    long maximumWeight() {
+        return policy.maximumWeight();
+    }
+
+    void forEachWeight(ObjLongConsumer<K> consumer) {
+        cache.forEach((key, entry) -> consumer.accept(key, entry.weight));
+    }
+
+    void cleanUp() {
+        evictionLock.lock();
+        try {
+            drainBuffers();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private CacheEntry<K> getIfPresent(K key) {
+        CacheEntry<K> entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            if (cache.remove(key, entry)) {
+                entry.removed();
+                afterWrite(() -> onRemove(key, entry));
+            }
+            return null;
+        }
+        return entry;
+    }
+
+    private void afterRead(K key) {
+        if (readBuffer.offer(key)) {
+            tryDrain();
+        }
+    }
+
+    private void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        if (pendingWrites.incrementAndGet() <= WRITE_BUFFER_THRESHOLD) {
+            tryDrain();
+            return;
+        }
+        cleanUp();
+    }
+
+    private void tryDrain() {
+        if (evictionLock.tryLock()) {
+            try {
+                drainBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drainBuffers() {
+        readBuffer.drainTo(this::onRead);
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            pendingWrites.decrementAndGet();
+            task.run();
+        }
+        timerWheel.advance(System.nanoTime(), node -> onExpire((CacheEntry<K>) node));
+    }
+
+    private void onRead(K key) {
+        if (policy.contains(key)) {
+            policy.recordAccess(key);
+        }
+    }
+
+    private void onWrite(K key, CacheEntry<K> entry, CacheEntry<K> previous) {
+        if (previous != null) {
+            timerWheel.deschedule(previous);
+        }
+        if (cache.get(key) != entry) {
+            return;
+        }
+        timerWheel.schedule(entry);
+        for (K victim : policy.update(key, entry.weight)) {
+            CacheEntry<K> evicted = cache.remove(victim);
+            if (evicted != null) {
+                evicted.removed();
+                timerWheel.deschedule(evicted);
+            }
+        }
+    }
+
+    private void onRemove(K key, CacheEntry<K> entry) {
+        timerWheel.deschedule(entry);
+        if (!cache.containsKey(key)) {
+            policy.remove(key);
+        }
+    }
+
+    private void onExpire(CacheEntry<K> entry) {
+        if (cache.remove(entry.key, entry)) {
+            entry.removed();
+            if (!cache.containsKey(entry.key)) {
+                policy.remove(entry.key);
+            }
+        }
+    }
+
+    private static final class CacheEntry<K> extends TimerWheel.Node {
+        final K key;
+        final Object value;
+        final long weight;
+        final Runnable onRemoval;
+
+        CacheEntry(K key, Object value, long weight, long expiresAt, Runnable onRemoval) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+            this.onRemoval = onRemoval;
+        }
+
+        void removed() {
+            if (onRemoval != null) {
+                onRemoval.run();
+            }
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0L;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package org.example.cache;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Reverse index from entities to the cached values built from them, plus the
+ * versioning that keeps stale values out of the cache.
+ *
+ * <p>Caches record the dependencies of every value they store; {@link #invalidate}
+ * then evicts exactly the values that depend on a changed entity (plus those that
+ * depend on any entity of its type). Inside a transaction the change is marked
+ * pending and evicted right away, and evicted again once the transaction completes;
+ * a dependency the transaction already changed isn't evicted again until then, so a
+ * bulk write evicts the type-wide entries once rather than once per row.
+ * While it is pending, and for any reader that started loading before it completed,
+ * {@link #isCurrent} refuses the dependency, so a reader can't re-cache a snapshot
+ * taken before the commit. Readers take a {@link #ticket()} before touching the
+ * database and hand it to {@code put}. A value's edges are dropped when its cache
+ * lets go of it, whether evicted for size, expired or replaced, so the graph only
+ * holds what is actually cached. Once more than {@value #PRUNE_THRESHOLD} entities
+ * have invalidation versions, those older than the previous prune are dropped, and
+ * tickets taken before that prune are refused instead.
+ *
+ * <p>Committed invalidations are also published on the {@link InvalidationBus}, and
+ * invalidations from other nodes are applied here the same way, so every node's near
+ * cache drops what another node's write made stale. {@link ChangeListener}s hear
+ * about every committed change, local or remote, before the affected entries are
+ * evicted, so an index they maintain is never behind a value cached after the
+ * eviction.
+ */
+@Component
+public class CacheDependencyGraph {
+    private static final Logger logger = LoggerFactory.getLogger(CacheDependencyGraph.class);
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final ConcurrentHashMap<Dependency, Set<CachedValue>> dependents =
+            new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Dependency, Integer> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Dependency, Long> invalidatedAt = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final InvalidationBus bus;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock pruneLock = new ReentrantLock();
+    private volatile long resetAt = Long.MIN_VALUE;
+    private volatile long prunedThrough = Long.MIN_VALUE;
+    private long pruneMark = Long.MIN_VALUE;
+
+    public CacheDependencyGraph(InvalidationBus bus) {
+        this.bus = bus;
+        bus.subscribe(this::onMessage);
+    }
+
+    public void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /** Version to take before loading a value from the database. */
+    public long ticket() {
+        return clock.get();
+    }
+
+    /** Whether none of {@code dependencies} changed, or is changing, since {@code ticket}. */
+    public boolean isCurrent(Collection<Dependency> dependencies, long ticket) {
+        if (resetAt > ticket || prunedThrough > ticket) {
+            return false;
+        }
+        for (Dependency dependency : dependencies) {
+            if (pending.containsKey(dependency)
+                    || invalidatedAt.getOrDefault(dependency, Long.MIN_VALUE) > ticket) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Records the edges of a value loaded at {@code ticket}, unless it is already stale. */
+    boolean record(CachedValue value, Collection<Dependency> dependencies, long ticket) {
+        if (!isCurrent(dependencies, ticket)) {
+            return false;
+        }
+        for (Dependency dependency : dependencies) {
+            dependents.compute(dependency, (d, values) -> {
+                Set<CachedValue> recorded = values != null ? values : ConcurrentHashMap.newKeySet();
+                recorded.add(value);
+                return recorded;
+            });
+        }
+        return true;
+    }
+
+    /** Drops the edges of a value its cache no longer holds. */
+    void forget(CachedValue value, Collection<Dependency> dependencies) {
+        for (Dependency dependency : dependencies) {
+            dependents.computeIfPresent(dependency, (d, values) -> {
+                values.remove(value);
+                return values.isEmpty() ? null : values;
+            });
+        }
+    }
+
+    /**
+     * Evicts everything that depends on {@code changed}. Within a transaction the
+     * dependencies stay pending until it completes and are evicted once more then.
+     */
+    public void invalidate(Collection<Dependency> changed) {
+        Set<Dependency> expanded = expand(changed);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notifyChanged(expanded);
+            bump(expanded);
+            bus.publish(InvalidationMessage.of(nodeId, expanded));
+            return;
+        }
+        PendingInvalidation invalidation =
+                (PendingInvalidation) TransactionSynchronizationManager.getResource(this);
+        if (invalidation == null) {
+            invalidation = new PendingInvalidation();
+            TransactionSynchronizationManager.bindResource(this, invalidation);
+            TransactionSynchronizationManager.registerSynchronization(invalidation);
+        }
+        Set<Dependency> added = new LinkedHashSet<>();
+        for (Dependency dependency : expanded) {
+            if (invalidation.dependencies.add(dependency)) {
+                pending.merge(dependency, 1, Integer::sum);
+                added.add(dependency);
+            }
+        }
+        if (!added.isEmpty()) {
+            bump(added);
+        }
+    }
+
+    public void invalidate(Dependency changed) {
+        invalidate(Set.of(changed));
+    }
+
+    public void clear() {
+        dependents.clear();
+    }
+
+    /** Evicts every recorded value and refuses all loads that started before now. */
+    public void reset() {
+        listeners.forEach(ChangeListener::reset);
+        resetAt = clock.incrementAndGet();
+        for (Dependency dependency : dependents.keySet()) {
+            Set<CachedValue> values = dependents.remove(dependency);
+            if (values != null) {
+                values.forEach(CachedValue::evict);
+            }
+        }
+        logger.info("Cache dependency graph reset, all dependent entries evicted");
+    }
+
+    private void complete(Set<Dependency> dependencies, boolean committed) {
+        for (Dependency dependency : dependencies) {
+            pending.computeIfPresent(dependency, (d, count) -> count == 1 ? null : count - 1);
+        }
+        if (committed) {
+            notifyChanged(dependencies);
+        }
+        bump(dependencies);
+        if (committed) {
+            bus.publish(InvalidationMessage.of(nodeId, dependencies));
+        }
+    }
+
+    private void onMessage(InvalidationMessage message) {
+        if (nodeId.equals(message.origin())) {
+            return;
+        }
+        if (message.reset()) {
+            reset();
+        } else {
+            notifyChanged(message.dependencies());
+            bump(message.dependencies());
+        }
+    }
+
+    private void notifyChanged(Set<Dependency> dependencies) {
+        for (ChangeListener listener : listeners) {
+            try {
+                listener.changed(dependencies);
+            } catch (RuntimeException e) {
+                logger.error("Cache change listener failed", e);
+            }
+        }
+    }
+
+    private void bump(Set<Dependency> dependencies) {
+        long version = clock.incrementAndGet();
+        for (Dependency dependency : dependencies) {
+            invalidatedAt.put(dependency, version);
+        }
+        for (Dependency dependency : dependencies) {
+            Set<CachedValue> values = dependents.remove(dependency);
+            if (values != null) {
+                values.forEach(CachedValue::evict);
+            }
+        }
+        logger.debug("Invalidated cache entries depending on {}", dependencies);
+        prune();
+    }
+
+    /**
+     * Drops the invalidation versions that predate the previous prune, once there are
+     * too many. Tickets older than that are then refused by {@link #isCurrent}, which
+     * is what the dropped versions would have answered for every entity they covered.
+     */
+    private void prune() {
+        if (invalidatedAt.size() <= PRUNE_THRESHOLD || !pruneLock.tryLock()) {
+            return;
+        }
+        try {
+            long floor = pruneMark;
+            pruneMark = clock.get();
+            if (floor == Long.MIN_VALUE) {
+                return;
+            }
+            prunedThrough = floor;
+            invalidatedAt.values().removeIf(version -> version <= floor);
+            logger.debug("Pruned invalidation versions up to {}", floor);
+        } finally {
+            pruneLock.unlock();
+        }
+    }
+
+    private static Set<Dependency> expand(Collection<Dependency> changed) {
+        Set<Dependency> expanded = new LinkedHashSet<>();
+        for (Dependency dependency : changed) {
+            expanded.add(dependency);
+            expanded.add(dependency.anyOfType());
+        }
+        return expanded;
+    }
+
+    /** Hears about committed changes, for indexes kept alongside the caches. */
+    public interface ChangeListener {
+        /** Called with the changed entities, each together with {@code any} of its type. */
+        void changed(Set<Dependency> dependencies);
+
+        /** Called when changes may have been missed and everything has to be reloaded. */
+        void reset();
+    }
+
+    /** A handle on one cached value that can evict it. */
+    interface CachedValue {
+        void evict();
+    }
+
+    private final class PendingInvalidation implements TransactionSynchronization {
+        private final Set<Dependency> dependencies = new LinkedHashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(
+                    CacheDependencyGraph.this);
+            complete(dependencies, status == STATUS_COMMITTED);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+    private Map<String, Region> regions = new HashMap<>();
+
+    public Region region(String name) {
+        return regions.getOrDefault(name, new Region());
+    }
+
+    @Data
+    public static class Region {
+        private long maxWeightBytes = 16L * 1024 * 1024;
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A typed slice of the cache keyed by entity id, e.g. countries by id or the cities
+ * of a country. Each region has its own weight budget, TTL and hit/miss counters, so
+ * callers neither build string keys nor cast cached values back.
+ *
+ * <p>Ids are boxed into {@code Long} keys of the shared {@link BoundedLocalCache}, so
+ * regions get the same admission, eviction and expiry as {@link SearchCache}. A
+ * primitive-keyed map would need its own copy of all three. The box made per lookup is
+ * short-lived, and a cached key's box is one object beside the node that already holds
+ * the entry.
+ */
+public final class CacheRegion<V> {
+    private final String name;
+    private final Duration ttl;
+    private final BoundedLocalCache<Long> cache;
+    private final CacheDependencyGraph dependencyGraph;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CacheRegion(String name, long maximumWeight, Duration ttl, Weigher weigher,
+                CacheDependencyGraph dependencyGraph) {
+        this.name = name;
+        this.ttl = ttl;
+        this.cache = new BoundedLocalCache<>(maximumWeight, weigher);
+        this.dependencyGraph = dependencyGraph;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long id) {
+        V value = (V) cache.get(id);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /** Version to take before loading a value from the database. */
+    public long ticket() {
+        return dependencyGraph.ticket();
+    }
+
+    /**
+     * Caches {@code value}, loaded at {@code ticket}, until it expires or one of its
+     * dependencies changes. Dropped if a dependency changed after the ticket was taken.
+     */
+    public void put(long id, V value, Collection<Dependency> dependencies, long ticket) {
+        Entry entry = new Entry(this, id);
+        if (!dependencyGraph.record(entry, dependencies, ticket)) {
+            return;
+        }
+        cache.put(id, value, ttl, () -> dependencyGraph.forget(entry, dependencies));
+        if (!dependencyGraph.isCurrent(dependencies, ticket)) {
+            entry.evict();
+        }
+    }
+
+    /**
+     * Caches a value the current transaction has just written, once it commits.
+     * Nothing is cached on rollback, and without a transaction it is cached right away.
+     */
+    public void putAfterCommit(long id, V value, Collection<Dependency> dependencies) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(id, value, dependencies, ticket());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    put(id, value, dependencies, ticket());
+                }
+            }
+        });
+    }
+
+    public void invalidate(long id) {
+        cache.remove(id);
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    public CacheRegionStats stats() {
+        return new CacheRegionStats(name, cache.size(), cache.weightedSize(),
+                cache.maximumWeight(), ttl, hits.sum(), misses.sum());
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    /** Compared by identity, so forgetting a replaced value leaves its successor's edges. */
+    private static final class Entry implements CacheDependencyGraph.CachedValue {
+        private final CacheRegion<?> region;
+        private final long id;
+
+        Entry(CacheRegion<?> region, long id) {
+            this.region = region;
+            this.id = id;
+        }
+
+        @Override
+        public void evict() {
+            region.invalidate(id);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.cache;
+
+import java.time.Duration;
+
+public record CacheRegionStats(String name, int entries, long weightedSize, long maximumWeight,
+                               Duration ttl, long hits, long misses) {
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.cache;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import org.example.dto.CitySnapshot;
+import org.example.dto.CountrySnapshot;
+import org.example.dto.NationSnapshot;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CacheRegions {
+    private static final Duration MAINTENANCE_INTERVAL = Duration.ofSeconds(1);
+
+    private final CacheRegion<CountrySnapshot> countries;
+    private final CacheRegion<Set<CitySnapshot>> citiesByCountry;
+    private final CacheRegion<Set<NationSnapshot>> nationsByCountry;
+    private final CacheRegion<Set<CountrySnapshot>> countriesByNation;
+    private final List<CacheRegion<?>> regions;
+    private final ScheduledFuture<?> maintenance;
+
+    public CacheRegions(@Qualifier("cacheMaintenanceScheduler") TaskScheduler scheduler,
+                        Weigher weigher, CacheProperties properties,
+                        CacheDependencyGraph dependencyGraph) {
+        this.countries = create("countries", weigher, properties, dependencyGraph);
+        this.citiesByCountry = create("cities-by-country", weigher, properties, dependencyGraph);
+        this.nationsByCountry = create("nations-by-country", weigher, properties,
+                dependencyGraph);
+        this.countriesByNation = create("countries-by-nation", weigher, properties,
+                dependencyGraph);
+        this.regions = List.of(countries, citiesByCountry, nationsByCountry, countriesByNation);
+        this.maintenance = scheduler.scheduleAtFixedRate(
+                () -> regions.forEach(CacheRegion::cleanUp), MAINTENANCE_INTERVAL);
+    }
+
+    public CacheRegion<CountrySnapshot> getCountries() {
+        return countries;
+    }
+
+    public CacheRegion<Set<CitySnapshot>> getCitiesByCountry() {
+        return citiesByCountry;
+    }
+
+    public CacheRegion<Set<NationSnapshot>> getNationsByCountry() {
+        return nationsByCountry;
+    }
+
+    public CacheRegion<Set<CountrySnapshot>> getCountriesByNation() {
+        return countriesByNation;
+    }
+
+    public List<CacheRegionStats> stats() {
+        return regions.stream().map(CacheRegion::stats).toList();
+    }
+
+    public void invalidateAll() {
+        regions.forEach(CacheRegion::invalidateAll);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintenance.cancel(false);
+    }
+
+    private static <V> CacheRegion<V> create(String name, Weigher weigher,
+                                             CacheProperties properties,
+                                             CacheDependencyGraph dependencyGraph) {
+        CacheProperties.Region settings = properties.region(name);
+        return new CacheRegion<>(name, settings.getMaxWeightBytes(), settings.getTtl(), weigher,
+                dependencyGraph);
+    }
+}
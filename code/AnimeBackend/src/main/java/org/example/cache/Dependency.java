@@ -0,0 +1,88 @@
+package org.example.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.example.dto.CountrySnapshot;
+
+/**
+ * Something a cached value was built from: one entity, or every entity of a type
+ * when {@code id} is {@link #ANY}. Whole-table results such as {@code all_countries}
+ * depend on {@code ANY}, so any change of that type invalidates them. A result that
+ * only a new row can change, such as a page of ids, depends on {@link #INSERTED},
+ * which only inserts report.
+ */
+public record Dependency(EntityType type, long id) {
+    public static final long ANY = Long.MIN_VALUE;
+    public static final long INSERTED = Long.MIN_VALUE + 1;
+
+    public enum EntityType {
+        COUNTRY, CITY, NATION
+    }
+
+    public static Dependency country(long id) {
+        return new Dependency(EntityType.COUNTRY, id);
+    }
+
+    public static Dependency city(long id) {
+        return new Dependency(EntityType.CITY, id);
+    }
+
+    public static Dependency nation(long id) {
+        return new Dependency(EntityType.NATION, id);
+    }
+
+    public static Dependency any(EntityType type) {
+        return new Dependency(type, ANY);
+    }
+
+    /** Reported for every insert of an entity of {@code type}. */
+    public static Dependency inserted(EntityType type) {
+        return new Dependency(type, INSERTED);
+    }
+
+    /** Whether this is one entity, rather than {@link #ANY} or {@link #INSERTED}. */
+    public boolean isEntity() {
+        return id != ANY && id != INSERTED;
+    }
+
+    public Dependency anyOfType() {
+        return any(type);
+    }
+
+    /** Each of the entities of {@code type} with the given {@code ids}. */
+    public static List<Dependency> of(EntityType type, Collection<Long> ids) {
+        List<Dependency> dependencies = new ArrayList<>(ids.size() + 1);
+        ids.forEach(id -> dependencies.add(new Dependency(type, id)));
+        return dependencies;
+    }
+
+    /**
+     * A page of entities listed by id: the entities on it, plus any insert of the type,
+     * since ids are not handed out in order and a new row may land on any page.
+     */
+    public static List<Dependency> ofPage(EntityType type, Collection<Long> ids) {
+        List<Dependency> dependencies = of(type, ids);
+        dependencies.add(inserted(type));
+        return dependencies;
+    }
+
+    /** A country with its cities and nations: city changes are reported against the country. */
+    public static List<Dependency> ofCountryGraph(CountrySnapshot country) {
+        List<Dependency> dependencies = new ArrayList<>();
+        dependencies.add(country(country.id()));
+        for (long nationId : country.nationIds()) {
+            dependencies.add(nation(nationId));
+        }
+        return dependencies;
+    }
+
+    /** A nation with the full graphs of its countries. */
+    public static List<Dependency> ofNationGraph(long nationId,
+                                                 Collection<CountrySnapshot> countries) {
+        List<Dependency> dependencies = new ArrayList<>();
+        dependencies.add(nation(nationId));
+        countries.forEach(country -> dependencies.addAll(ofCountryGraph(country)));
+        return dependencies;
+    }
+}
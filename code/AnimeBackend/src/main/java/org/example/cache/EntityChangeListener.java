@@ -0,0 +1,160 @@
+package org.example.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.example.model.City;
+import org.example.model.Country;
+import org.example.model.Nation;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns Hibernate insert/update/delete and collection events for Country, City and
+ * Nation into {@link Dependency} changes for the {@link CacheDependencyGraph}, so the
+ * services never have to know which cache entries a write affects. An insert is also
+ * reported as {@link Dependency#inserted} of its type. A city change is
+ * also reported against its old and new country, and a change of a country's nation
+ * links against every nation added or removed.
+ */
+@Component
+public class EntityChangeListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionUpdateEventListener,
+        PostCollectionRecreateEventListener {
+    private static final String COUNTRY_PROPERTY = "country";
+    private static final String NATIONS_ROLE = Country.class.getName() + ".nations";
+
+    private final transient EntityManagerFactory entityManagerFactory;
+    private final transient CacheDependencyGraph dependencyGraph;
+
+    public EntityChangeListener(EntityManagerFactory entityManagerFactory,
+                                CacheDependencyGraph dependencyGraph) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.dependencyGraph = dependencyGraph;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        List<Dependency> changes = changesOf(event.getEntity(), null);
+        if (!changes.isEmpty()) {
+            changes.add(Dependency.inserted(changes.get(0).type()));
+        }
+        publish(changes);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object oldCountry = null;
+        if (event.getEntity() instanceof City && event.getOldState() != null) {
+            String[] properties = event.getPersister().getPropertyNames();
+            for (int i = 0; i < properties.length; i++) {
+                if (COUNTRY_PROPERTY.equals(properties[i])) {
+                    oldCountry = event.getOldState()[i];
+                }
+            }
+        }
+        publish(changesOf(event.getEntity(), oldCountry));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(changesOf(event.getEntity(), null));
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        publish(changesOf(event));
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        publish(changesOf(event));
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void publish(List<Dependency> changes) {
+        if (!changes.isEmpty()) {
+            dependencyGraph.invalidate(changes);
+        }
+    }
+
+    private static List<Dependency> changesOf(Object entity, Object oldCountry) {
+        List<Dependency> changes = new ArrayList<>();
+        if (entity instanceof Country country) {
+            changes.add(Dependency.country(country.getId()));
+        } else if (entity instanceof City city) {
+            changes.add(Dependency.city(city.getId()));
+            addCountry(changes, city.getCountry());
+            addCountry(changes, oldCountry);
+        } else if (entity instanceof Nation nation) {
+            changes.add(Dependency.nation(nation.getId()));
+        }
+        return changes;
+    }
+
+    private static List<Dependency> changesOf(AbstractCollectionEvent event) {
+        List<Dependency> changes = new ArrayList<>();
+        PersistentCollection<?> collection = event.getCollection();
+        if (!NATIONS_ROLE.equals(collection.getRole())
+                || !(event.getAffectedOwnerOrNull() instanceof Country owner)) {
+            return changes;
+        }
+        changes.add(Dependency.country(owner.getId()));
+        addNations(changes, collection.getStoredSnapshot());
+        if (collection instanceof Collection<?> current) {
+            addNations(changes, current);
+        }
+        return changes;
+    }
+
+    private static void addCountry(List<Dependency> changes, Object country) {
+        if (country instanceof Country c && c.getId() != null) {
+            changes.add(Dependency.country(c.getId()));
+        }
+    }
+
+    private static void addNations(List<Dependency> changes, Object elements) {
+        Collection<?> nations = elements instanceof Map<?, ?> map ? map.values()
+                : elements instanceof Collection<?> collection ? collection : List.of();
+        for (Object element : nations) {
+            if (element instanceof Nation nation && nation.getId() != null) {
+                changes.add(Dependency.nation(nation.getId()));
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidations between application instances, so a write through one
+ * node evicts the near-cache entries it affects on every other node. Messages are
+ * delivered to every subscriber, including the publishing node's own;
+ * {@link CacheDependencyGraph} skips the ones it sent itself.
+ */
+public interface InvalidationBus {
+
+    void publish(InvalidationMessage message);
+
+    void subscribe(Consumer<InvalidationMessage> subscriber);
+}
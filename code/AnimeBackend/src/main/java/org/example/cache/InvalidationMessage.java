@@ -0,0 +1,86 @@
+package org.example.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dependencies that changed on node {@code origin}, or, when {@code reset} is set, a
+ * request to drop everything because invalidations may have been missed. The text
+ * form used by the Postgres transport is {@code origin;COUNTRY:5,CITY:+,NATION:*} or
+ * {@code origin;RESET}, with {@code +} for {@link Dependency#INSERTED}.
+ */
+public record InvalidationMessage(String origin, Set<Dependency> dependencies, boolean reset) {
+    private static final String RESET = "RESET";
+    private static final String ANY = "*";
+    private static final String INSERTED = "+";
+
+    public static InvalidationMessage of(String origin, Collection<Dependency> dependencies) {
+        return new InvalidationMessage(origin, Set.copyOf(dependencies), false);
+    }
+
+    public static InvalidationMessage reset(String origin) {
+        return new InvalidationMessage(origin, Set.of(), true);
+    }
+
+    /** Encodes the message, splitting it so no part is longer than {@code maxLength}. */
+    public List<String> encode(int maxLength) {
+        List<String> parts = new ArrayList<>();
+        if (reset) {
+            parts.add(origin + ';' + RESET);
+            return parts;
+        }
+        StringBuilder part = new StringBuilder(origin).append(';');
+        int empty = part.length();
+        for (Dependency dependency : dependencies) {
+            String encoded = dependency.type() + ":" + encode(dependency.id());
+            if (part.length() > empty && part.length() + 1 + encoded.length() > maxLength) {
+                parts.add(part.toString());
+                part.setLength(empty);
+            }
+            if (part.length() > empty) {
+                part.append(',');
+            }
+            part.append(encoded);
+        }
+        if (part.length() > empty) {
+            parts.add(part.toString());
+        }
+        return parts;
+    }
+
+    public static InvalidationMessage decode(String payload) {
+        int separator = payload.indexOf(';');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed invalidation message: " + payload);
+        }
+        String origin = payload.substring(0, separator);
+        String body = payload.substring(separator + 1);
+        if (RESET.equals(body)) {
+            return reset(origin);
+        }
+        Set<Dependency> dependencies = new LinkedHashSet<>();
+        for (String encoded : body.split(",")) {
+            int colon = encoded.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Malformed dependency: " + encoded);
+            }
+            Dependency.EntityType type = Dependency.EntityType.valueOf(
+                    encoded.substring(0, colon));
+            String id = encoded.substring(colon + 1);
+            dependencies.add(ANY.equals(id) ? Dependency.any(type)
+                    : INSERTED.equals(id) ? Dependency.inserted(type)
+                    : new Dependency(type, Long.parseLong(id)));
+        }
+        return new InvalidationMessage(origin, Set.copyOf(dependencies), false);
+    }
+
+    private static String encode(long id) {
+        if (id == Dependency.ANY) {
+            return ANY;
+        }
+        return id == Dependency.INSERTED ? INSERTED : Long.toString(id);
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process {@link InvalidationBus}: delivers every message synchronously to the
+ * subscribers in this JVM. The default for a single instance, and lets several
+ * dependency graphs in one process stand in for a cluster.
+ */
+public class LoopbackInvalidationBus implements InvalidationBus {
+    private final List<Consumer<InvalidationMessage>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        subscribers.forEach(subscriber -> subscriber.accept(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
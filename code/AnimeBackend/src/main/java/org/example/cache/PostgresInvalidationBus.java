@@ -0,0 +1,166 @@
+package org.example.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link InvalidationBus} over Postgres {@code LISTEN}/{@code NOTIFY}, so a cluster
+ * needs nothing beyond the database it already uses. One daemon thread owns a
+ * dedicated connection: it listens on the channel, sends queued messages with
+ * {@code pg_notify} and polls for notifications in between. Payloads are split
+ * below the 8000-byte {@code NOTIFY} limit. After a lost connection subscribers get
+ * a reset, since invalidations may have been missed while it was down, and messages
+ * that failed to send are queued again.
+ */
+public class PostgresInvalidationBus implements InvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    private static final int MAX_PAYLOAD = 7900;
+    private static final int POLL_TIMEOUT_MILLIS = 250;
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(5);
+
+    private final DataSource dataSource;
+    private final String channel;
+    private final BlockingQueue<InvalidationMessage> outbox = new LinkedBlockingQueue<>();
+    private final List<Consumer<InvalidationMessage>> subscribers = new CopyOnWriteArrayList<>();
+    private volatile boolean running;
+    private Thread worker;
+
+    public PostgresInvalidationBus(DataSource dataSource, String channel) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.channel = channel;
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        outbox.add(message);
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "cache-invalidation-" + channel);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (reconnect) {
+                    deliver(InvalidationMessage.reset(""));
+                }
+                reconnect = true;
+                logger.info("Listening for cache invalidations on channel {}", channel);
+                listen(connection);
+            } catch (SQLException e) {
+                logger.warn("Cache invalidation channel {} failed: {}", channel, e.getMessage());
+                pause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void listen(Connection connection) throws SQLException, InterruptedException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        try (PreparedStatement notify = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            while (running) {
+                send(notify);
+                PGNotification[] notifications = pgConnection.getNotifications(
+                        POLL_TIMEOUT_MILLIS);
+                if (notifications != null) {
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+
+    private void send(PreparedStatement notify) throws SQLException {
+        List<InvalidationMessage> pending = new ArrayList<>();
+        outbox.drainTo(pending);
+        try {
+            for (InvalidationMessage message : pending) {
+                for (String payload : message.encode(MAX_PAYLOAD)) {
+                    notify.setString(1, channel);
+                    notify.setString(2, payload);
+                    notify.execute();
+                }
+            }
+        } catch (SQLException e) {
+            outbox.addAll(pending);
+            throw e;
+        }
+    }
+
+    private void receive(String payload) {
+        try {
+            deliver(InvalidationMessage.decode(payload));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring cache invalidation {}: {}", payload, e.getMessage());
+        }
+    }
+
+    private void deliver(InvalidationMessage message) {
+        for (Consumer<InvalidationMessage> subscriber : subscribers) {
+            try {
+                subscriber.accept(message);
+            } catch (RuntimeException e) {
+                logger.error("Cache invalidation subscriber failed", e);
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(RECONNECT_DELAY.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
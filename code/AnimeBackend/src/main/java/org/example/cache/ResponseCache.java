@@ -0,0 +1,119 @@
+package org.example.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches read responses as serialized UTF-8 JSON with a strong ETag, so a hit skips
+ * Jackson entirely and the bytes go straight to the servlet output stream. Entries
+ * live in {@link SearchCache} under a {@code response_} key, so they share its byte
+ * budget, single-flight loading and dependency invalidation. An empty collection is
+ * cached as {@code 204 No Content}, matching what the controllers returned before.
+ */
+@Component
+public class ResponseCache {
+    private static final String KEY_PREFIX = "response_";
+    private static final int ETAG_BYTES = 16;
+
+    private final SearchCache searchCache;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public ResponseCache(SearchCache searchCache, ObjectMapper objectMapper,
+                         @Value("${cache.response.ttl}") Duration ttl) {
+        this.searchCache = searchCache;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns the cached response for {@code key}, serializing the result of
+     * {@code loader} on a miss, or {@code 304 Not Modified} if {@code ifNoneMatch}
+     * names the current ETag.
+     */
+    public ResponseEntity<byte[]> get(String key, Collection<Dependency> dependencies,
+                                      String ifNoneMatch, Supplier<?> loader) {
+        return get(key, value -> dependencies, ifNoneMatch, loader);
+    }
+
+    /**
+     * Like {@link #get(String, Collection, String, Supplier)}, with dependencies taken
+     * from the loaded value.
+     */
+    public <T> ResponseEntity<byte[]> get(String key,
+                                          Function<? super T, Collection<Dependency>> dependencies,
+                                          String ifNoneMatch, Supplier<T> loader) {
+        AtomicReference<Collection<Dependency>> loaded = new AtomicReference<>();
+        CachedResponse response = searchCache.get(KEY_PREFIX + key, ttl, () -> {
+            T value = loader.get();
+            loaded.set(dependencies.apply(value));
+            return serialize(value);
+        }, serialized -> loaded.get());
+        if (response.body() == null) {
+            return ResponseEntity.noContent().build();
+        }
+        if (matches(ifNoneMatch, response.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(response.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(response.body().length)
+                .body(response.body());
+    }
+
+    private CachedResponse serialize(Object value) {
+        if (value instanceof Collection<?> collection && collection.isEmpty()) {
+            return new CachedResponse(null, null);
+        }
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(value);
+            return new CachedResponse(body, etagOf(body));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + HexFormat.of().formatHex(digest, 0, ETAG_BYTES) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Serialized body and ETag; both {@code null} for an empty result. */
+    record CachedResponse(byte[] body, String etag) {
+    }
+}
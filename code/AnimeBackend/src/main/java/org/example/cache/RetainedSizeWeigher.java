@@ -0,0 +1,151 @@
+package org.example.cache;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.example.dto.CityDto;
+import org.example.dto.CitySnapshot;
+import org.example.dto.CountryDto;
+import org.example.dto.CountrySnapshot;
+import org.example.dto.NationSnapshot;
+import org.example.model.City;
+import org.example.model.Country;
+import org.example.model.Nation;
+import org.hibernate.Hibernate;
+
+/**
+ * Approximates the retained heap size, in bytes, of the object graphs the services
+ * cache. It walks entities, DTOs, snapshots and collections once each (shared objects are only
+ * counted the first time) and skips lazy collections that Hibernate has not loaded.
+ * Sizes assume a 64-bit JVM with compressed oops.
+ */
+public class RetainedSizeWeigher implements Weigher {
+    private static final long OBJECT_HEADER = 16;
+    private static final long REFERENCE = 4;
+    private static final long BOXED = 16;
+    private static final long ENTRY_OVERHEAD = 32;
+    private static final long UNKNOWN_OBJECT = 64;
+
+    @Override
+    public long weigh(Object key, Object value) {
+        Map<Object, Boolean> visited = new IdentityHashMap<>();
+        return sizeOf(key, visited) + sizeOf(value, visited);
+    }
+
+    private long sizeOf(Object value, Map<Object, Boolean> visited) {
+        if (value == null || visited.put(value, Boolean.TRUE) != null) {
+            return 0;
+        }
+        if (value instanceof String string) {
+            return sizeOfString(string);
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return BOXED;
+        }
+        if (value instanceof Collection<?> collection) {
+            return sizeOfCollection(collection, visited);
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = OBJECT_HEADER + 48 + map.size() * ENTRY_OVERHEAD;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += sizeOf(entry.getKey(), visited) + sizeOf(entry.getValue(), visited);
+            }
+            return size;
+        }
+        if (value instanceof Country country) {
+            return OBJECT_HEADER + 8 * REFERENCE
+                    + sizeOf(country.getId(), visited)
+                    + sizeOf(country.getName(), visited)
+                    + sizeOf(country.getCapital(), visited)
+                    + sizeOf(country.getPopulation(), visited)
+                    + sizeOf(country.getAreaSquareKm(), visited)
+                    + sizeOf(country.getGdp(), visited)
+                    + sizeOf(country.getCities(), visited)
+                    + sizeOf(country.getNations(), visited);
+        }
+        if (value instanceof City city) {
+            return OBJECT_HEADER + 5 * REFERENCE
+                    + sizeOf(city.getId(), visited)
+                    + sizeOf(city.getName(), visited)
+                    + sizeOf(city.getPopulation(), visited)
+                    + sizeOf(city.getAreaSquareKm(), visited)
+                    + sizeOf(city.getCountry(), visited);
+        }
+        if (value instanceof Nation nation) {
+            return OBJECT_HEADER + 5 * REFERENCE
+                    + sizeOf(nation.getId(), visited)
+                    + sizeOf(nation.getName(), visited)
+                    + sizeOf(nation.getLanguage(), visited)
+                    + sizeOf(nation.getReligion(), visited)
+                    + sizeOf(nation.getCountries(), visited);
+        }
+        if (value instanceof CityDto dto) {
+            return OBJECT_HEADER + 5 * REFERENCE
+                    + sizeOf(dto.getId(), visited)
+                    + sizeOf(dto.getName(), visited)
+                    + sizeOf(dto.getPopulation(), visited)
+                    + sizeOf(dto.getAreaSquareKm(), visited)
+                    + sizeOf(dto.getCountry(), visited);
+        }
+        if (value instanceof CountryDto dto) {
+            return OBJECT_HEADER + 7 * REFERENCE
+                    + sizeOf(dto.getId(), visited)
+                    + sizeOf(dto.getName(), visited)
+                    + sizeOf(dto.getCapital(), visited)
+                    + sizeOf(dto.getPopulation(), visited)
+                    + sizeOf(dto.getAreaSquareKm(), visited)
+                    + sizeOf(dto.getGdp(), visited)
+                    + sizeOf(dto.getCityIds(), visited);
+        }
+        if (value instanceof ResponseCache.CachedResponse response) {
+            return OBJECT_HEADER + 2 * REFERENCE
+                    + (response.body() == null ? 0 : OBJECT_HEADER + response.body().length)
+                    + sizeOf(response.etag(), visited);
+        }
+        if (value instanceof CountrySnapshot snapshot) {
+            return OBJECT_HEADER + 8 + 7 * REFERENCE
+                    + sizeOf(snapshot.name(), visited)
+                    + sizeOf(snapshot.capital(), visited)
+                    + sizeOf(snapshot.population(), visited)
+                    + sizeOf(snapshot.areaSquareKm(), visited)
+                    + sizeOf(snapshot.gdp(), visited)
+                    + sizeOfIds(snapshot.cityIds(), visited)
+                    + sizeOfIds(snapshot.nationIds(), visited);
+        }
+        if (value instanceof CitySnapshot snapshot) {
+            return OBJECT_HEADER + 8 + 4 * REFERENCE
+                    + sizeOf(snapshot.name(), visited)
+                    + sizeOf(snapshot.population(), visited)
+                    + sizeOf(snapshot.areaSquareKm(), visited)
+                    + sizeOf(snapshot.country(), visited);
+        }
+        if (value instanceof NationSnapshot snapshot) {
+            return OBJECT_HEADER + 8 + 3 * REFERENCE
+                    + sizeOf(snapshot.name(), visited)
+                    + sizeOf(snapshot.language(), visited)
+                    + sizeOf(snapshot.religion(), visited);
+        }
+        return UNKNOWN_OBJECT;
+    }
+
+    private static long sizeOfIds(long[] ids, Map<Object, Boolean> visited) {
+        return visited.put(ids, Boolean.TRUE) != null ? 0 : OBJECT_HEADER + 8L * ids.length;
+    }
+
+    private long sizeOfCollection(Collection<?> collection, Map<Object, Boolean> visited) {
+        if (!Hibernate.isInitialized(collection)) {
+            return OBJECT_HEADER + 8 * REFERENCE;
+        }
+        long perElement = collection instanceof Set<?> ? ENTRY_OVERHEAD : REFERENCE;
+        long size = OBJECT_HEADER + 32 + collection.size() * perElement;
+        for (Object element : collection) {
+            size += sizeOf(element, visited);
+        }
+        return size;
+    }
+
+    private static long sizeOfString(String value) {
+        return value == null ? 0 : OBJECT_HEADER + 8 + OBJECT_HEADER + value.length();
+    }
+}
@@ -1,66 +1,275 @@
 package org.example.cache;
 
-import java.util.LinkedHashMap;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
 
+/**
+ * String-keyed cache for whole-table results such as {@code all_countries}.
+ * Per-id lookups live in the typed {@link CacheRegions} instead. Backed by a
+ * weight-bounded {@link BoundedLocalCache}.
+ *
+ * <p>{@link #get(String, Duration, Collection, Supplier)} loads on a miss with
+ * single-flight semantics: concurrent misses for one key wait for a single load
+ * instead of each querying the database. An entry read during the last fifth of its
+ * TTL is reloaded in the background, so hot keys are replaced before they expire.
+ */
 @Component
 public class SearchCache {
-    private static final int MAX_SIZE = 100;
-    private static final long TTL = 10L * 60 * 1000;
-    private final Map<String, Object> cache = new LinkedHashMap<>() {
-        @Override
-        protected boolean removeEldestEntry(Map.Entry eldest) {
-            return size() > MAX_SIZE;
-        }
-    };
+    private static final Duration TTL = Duration.ofMinutes(10);
+    private static final Duration MAINTENANCE_INTERVAL = Duration.ofSeconds(1);
+    private static final int REFRESH_AHEAD_DIVISOR = 5;
+    private static final Logger logger = LoggerFactory.getLogger(SearchCache.class);
+
+    private final BoundedLocalCache<String> cache;
+    private final CacheDependencyGraph dependencyGraph;
+    private final Executor refreshExecutor;
+    private final TransactionOperations transactionOperations;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight =
+            new ConcurrentHashMap<>();
+    private ScheduledFuture<?> maintenance;
 
-    public SearchCache() {
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-        scheduler.scheduleAtFixedRate(this::clearExpired, TTL, TTL, TimeUnit.MILLISECONDS);
+    @Autowired
+    public SearchCache(@Qualifier("cacheMaintenanceScheduler") TaskScheduler scheduler,
+                       Weigher weigher,
+                       @Value("${cache.search.max-weight-bytes}") long maximumWeight,
+                       CacheDependencyGraph dependencyGraph,
+                       @Qualifier("cacheRefreshExecutor") Executor refreshExecutor,
+                       TransactionOperations transactionOperations) {
+        this(maximumWeight, weigher, dependencyGraph, refreshExecutor, transactionOperations);
+        this.maintenance = scheduler.scheduleAtFixedRate(cache::cleanUp, MAINTENANCE_INTERVAL);
     }
 
-    public synchronized void put(String key, Object value) {
-        cache.put(key, new CacheEntry(value));
+    SearchCache(long maximumWeight, Weigher weigher) {
+        this(maximumWeight, weigher, new CacheDependencyGraph(new LoopbackInvalidationBus()), Runnable::run,
+                TransactionOperations.withoutTransaction());
     }
 
-    public synchronized Object get(String key) {
-        CacheEntry entry = (CacheEntry) cache.get(key);
-        return entry == null ? null : entry.value;
+    private SearchCache(long maximumWeight, Weigher weigher,
+                        CacheDependencyGraph dependencyGraph, Executor refreshExecutor,
+                        TransactionOperations transactionOperations) {
+        this.cache = new BoundedLocalCache<>(maximumWeight, weigher);
+        this.dependencyGraph = dependencyGraph;
+        this.refreshExecutor = refreshExecutor;
+        this.transactionOperations = transactionOperations;
     }
 
-    public synchronized boolean containsKey(String key) {
-        return cache.containsKey(key);
+    public void put(String key, Object value) {
+        put(key, value, TTL);
+    }
+
+    public void put(String key, Object value, Duration ttl) {
+        cache.put(key, value, ttl);
+    }
+
+    /** Version to take before loading a value that is later cached with its dependencies. */
+    public long ticket() {
+        return dependencyGraph.ticket();
+    }
+
+    /**
+     * Caches {@code value}, loaded at {@code ticket}, until it expires or one of its
+     * dependencies changes. Dropped if a dependency changed after the ticket was taken.
+     */
+    public void put(String key, Object value, Duration ttl,
+                    Collection<Dependency> dependencies, long ticket) {
+        Key handle = new Key(this, key);
+        if (!dependencyGraph.record(handle, dependencies, ticket)) {
+            return;
+        }
+        cache.put(key, value, ttl, () -> dependencyGraph.forget(handle, dependencies));
+        if (!dependencyGraph.isCurrent(dependencies, ticket)) {
+            handle.evict();
+        }
     }
 
-    private synchronized void clearExpired() {
-        cache.entrySet().removeIf(entry ->
-                ((CacheEntry) entry.getValue()).isExpired()
-        );
+    public Object get(String key) {
+        return cache.get(key);
     }
 
-    public synchronized void remove(String key) {
+    /**
+     * Returns the cached value for {@code key}, or loads, caches and returns it.
+     * Concurrent callers missing the same key share one call to {@code loader}; if it
+     * throws, every waiter gets the same exception.
+     */
+    public <T> T get(String key, Duration ttl, Collection<Dependency> dependencies,
+                     Supplier<T> loader) {
+        return get(key, ttl, loader, value -> dependencies);
+    }
+
+    /**
+     * Like {@link #get(String, Duration, Collection, Supplier)}, for values whose
+     * dependencies are only known once they are loaded.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Duration ttl, Supplier<T> loader,
+                     Function<? super T, Collection<Dependency>> dependencies) {
+        Object cached = cache.get(key);
+        if (cached != null) {
+            long remaining = cache.remainingNanos(key);
+            if (remaining >= 0 && remaining < ttl.toNanos() / REFRESH_AHEAD_DIVISOR) {
+                refresh(key, (T) cached, ttl, dependencies, loader);
+            }
+            return (T) cached;
+        }
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, load);
+        if (existing != null) {
+            return (T) await(existing);
+        }
+        try {
+            cached = cache.get(key);
+            T value = cached != null ? (T) cached : load(key, ttl, dependencies, loader);
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    public boolean containsKey(String key) {
+        return cache.containsKey(key);
+    }
+
+    public void remove(String key) {
         cache.remove(key);
     }
 
-    public synchronized void clear() {
+    public void clear() {
         cache.clear();
     }
 
-    private static class CacheEntry {
-        final Object value;
-        final long timestamp;
+    public int size() {
+        return cache.size();
+    }
+
+    public long weightedSize() {
+        return cache.weightedSize();
+    }
+
+    public long maximumWeight() {
+        return cache.maximumWeight();
+    }
+
+    /**
+     * Sums entry weights by key prefix, counting {@code cities_country_42} as
+     * {@code cities_country_}.
+     */
+    public Map<String, Long> weightsByPrefix() {
+        Map<String, Long> weights = new TreeMap<>();
+        cache.forEachWeight((key, weight) -> weights.merge(prefixOf(key), weight, Long::sum));
+        return weights;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (maintenance != null) {
+            maintenance.cancel(false);
+        }
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private <T> T load(String key, Duration ttl,
+                       Function<? super T, Collection<Dependency>> dependencies,
+                       Supplier<T> loader) {
+        long ticket = dependencyGraph.ticket();
+        T value = loader.get();
+        put(key, value, ttl, dependencies.apply(value), ticket);
+        return value;
+    }
 
-        CacheEntry(Object value) {
-            this.value = value;
-            this.timestamp = System.currentTimeMillis();
+    /**
+     * Reloads {@code key} on the refresh executor. Misses in the meantime wait for the
+     * reload, and get {@code current} if the executor refuses it.
+     */
+    private <T> void refresh(String key, T current, Duration ttl,
+                             Function<? super T, Collection<Dependency>> dependencies,
+                             Supplier<T> loader) {
+        CompletableFuture<Object> reload = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, reload) != null) {
+            return;
         }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    reload.complete(transactionOperations.execute(
+                            status -> load(key, ttl, dependencies, loader)));
+                    logger.debug("Refreshed cache entry {} ahead of expiry", key);
+                } catch (RuntimeException e) {
+                    reload.completeExceptionally(e);
+                    logger.warn("Refresh of cache entry {} failed: {}", key, e.getMessage());
+                } catch (Error e) {
+                    reload.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(key, reload);
+                }
+            });
+        } catch (RuntimeException e) {
+            reload.complete(current);
+            inFlight.remove(key, reload);
+            logger.debug("Refresh of cache entry {} skipped: {}", key, e.getMessage());
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String prefixOf(String key) {
+        int end = key.length();
+        while (end > 0 && Character.isDigit(key.charAt(end - 1))) {
+            end--;
+        }
+        return end == 0 ? key : key.substring(0, end);
+    }
+
+    /** Compared by identity, so forgetting a replaced value leaves its successor's edges. */
+    private static final class Key implements CacheDependencyGraph.CachedValue {
+        private final SearchCache cache;
+        private final String key;
 
-        boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > TTL;
+        Key(SearchCache cache, String key) {
+            this.cache = cache;
+            this.key = key;
+        }
+
+        @Override
+        public void evict() {
+            cache.remove(key);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package org.example.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lossy, lock-free buffer of read events. Readers pick a stripe by thread and
+ * claim a slot with a single CAS; when a stripe is full or contended the event is
+ * simply dropped, because access order is only a hint for the eviction policy.
+ * Draining is done by one thread at a time under the cache's eviction lock.
+ */
+final class StripedReadBuffer<E> {
+    private static final int STRIPE_CAPACITY = 32;
+    private static final int STRIPE_MASK = STRIPE_CAPACITY - 1;
+
+    private final Stripe<E>[] stripes;
+    private final int stripeMask;
+
+    @SuppressWarnings("unchecked")
+    StripedReadBuffer() {
+        int count = Integer.highestOneBit(
+                Math.max(1, Runtime.getRuntime().availableProcessors()) * 2);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        this.stripeMask = count - 1;
+    }
+
+    /** Returns {@code true} when the stripe is full and should be drained. */
+    boolean offer(E event) {
+        long probe = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        Stripe<E> stripe = stripes[(int) (probe >>> 32) & stripeMask];
+        long head = stripe.readCounter;
+        long tail = stripe.writeCounter.get();
+        if (tail - head >= STRIPE_CAPACITY) {
+            return true;
+        }
+        if (stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+            stripe.slots.lazySet((int) (tail & STRIPE_MASK), event);
+            return tail - head + 1 >= STRIPE_CAPACITY;
+        }
+        return false;
+    }
+
+    void drainTo(Consumer<E> consumer) {
+        for (Stripe<E> stripe : stripes) {
+            long head = stripe.readCounter;
+            long tail = stripe.writeCounter.get();
+            while (head < tail) {
+                int index = (int) (head & STRIPE_MASK);
+                E event = stripe.slots.get(index);
+                if (event == null) {
+                    break;
+                }
+                stripe.slots.lazySet(index, null);
+                consumer.accept(event);
+                head++;
+            }
+            stripe.readCounter = head;
+        }
+    }
+
+    private static final class Stripe<E> {
+        final AtomicReferenceArray<E> slots = new AtomicReferenceArray<>(STRIPE_CAPACITY);
+        final AtomicLong writeCounter = new AtomicLong();
+        volatile long readCounter;
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.cache;
+
+/**
+ * Estimates how much a cached value costs to keep. {@link SearchCache} evicts by the
+ * sum of these weights, so the unit only has to match the configured budget.
+ */
+@FunctionalInterface
+public interface Weigher {
+
+    long weigh(Object key, Object value);
+
+    static Weigher singleton() {
+        return (key, value) -> 1L;
+    }
+}
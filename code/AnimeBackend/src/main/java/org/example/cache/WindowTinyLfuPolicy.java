@@ -0,0 +1,177 @@
+package org.example.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted W-TinyLFU eviction policy: a small LRU admission window in front of a
+ * segmented LRU main space (probation + protected), each segment bounded by total
+ * weight rather than entry count. A key leaving the window only stays in the main
+ * space if the frequency sketch rates it higher than the main space's victim.
+ * Not thread-safe: {@link SearchCache} calls it while holding its eviction lock.
+ */
+final class WindowTinyLfuPolicy<K> {
+    private final LinkedHashSet<K> window = new LinkedHashSet<>();
+    private final LinkedHashSet<K> probation = new LinkedHashSet<>();
+    private final LinkedHashSet<K> protectedSpace = new LinkedHashSet<>();
+    private final Map<K, Long> weights = new HashMap<>();
+    private final FrequencySketch sketch;
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long mainMaximum;
+    private final long protectedMaximum;
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+
+    WindowTinyLfuPolicy(long maximumWeight, int expectedSize) {
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1L, maximumWeight / 100);
+        this.mainMaximum = Math.max(1L, maximumWeight - windowMaximum);
+        this.protectedMaximum = Math.max(1L, mainMaximum * 4 / 5);
+        this.sketch = new FrequencySketch(expectedSize);
+    }
+
+    boolean contains(K key) {
+        return weights.containsKey(key);
+    }
+
+    long weightedSize() {
+        return windowWeight + probationWeight + protectedWeight;
+    }
+
+    long maximumWeight() {
+        return maximumWeight;
+    }
+
+    void recordAccess(K key) {
+        sketch.increment(key);
+        if (window.remove(key)) {
+            window.add(key);
+        } else if (probation.remove(key)) {
+            long weight = weights.get(key);
+            probationWeight -= weight;
+            protectedSpace.add(key);
+            protectedWeight += weight;
+            demoteProtectedOverflow();
+        } else if (protectedSpace.remove(key)) {
+            protectedSpace.add(key);
+        }
+    }
+
+    /** Adds a new key and returns the keys that have to be evicted from the cache. */
+    List<K> add(K key, long weight) {
+        sketch.increment(key);
+        if (weight > maximumWeight) {
+            return List.of(key);
+        }
+        weights.put(key, weight);
+        window.add(key);
+        windowWeight += weight;
+        return evict();
+    }
+
+    /** Re-weighs a key whose value was replaced and returns the keys to evict. */
+    List<K> update(K key, long weight) {
+        Long previous = weights.get(key);
+        if (previous == null) {
+            return add(key, weight);
+        }
+        weights.put(key, weight);
+        long delta = weight - previous;
+        if (window.contains(key)) {
+            windowWeight += delta;
+        } else if (probation.contains(key)) {
+            probationWeight += delta;
+        } else {
+            protectedWeight += delta;
+            demoteProtectedOverflow();
+        }
+        recordAccess(key);
+        if (weight > maximumWeight) {
+            remove(key);
+            List<K> evicted = evict();
+            evicted.add(key);
+            return evicted;
+        }
+        return evict();
+    }
+
+    void remove(K key) {
+        Long weight = weights.remove(key);
+        if (weight == null) {
+            return;
+        }
+        if (window.remove(key)) {
+            windowWeight -= weight;
+        } else if (probation.remove(key)) {
+            probationWeight -= weight;
+        } else if (protectedSpace.remove(key)) {
+            protectedWeight -= weight;
+        }
+    }
+
+    void clear() {
+        window.clear();
+        probation.clear();
+        protectedSpace.clear();
+        weights.clear();
+        windowWeight = 0;
+        probationWeight = 0;
+        protectedWeight = 0;
+        sketch.clear();
+    }
+
+    private List<K> evict() {
+        List<K> candidates = new ArrayList<>();
+        while (windowWeight > windowMaximum && !window.isEmpty()) {
+            K candidate = pollFirst(window);
+            long weight = weights.get(candidate);
+            windowWeight -= weight;
+            probation.add(candidate);
+            probationWeight += weight;
+            candidates.add(candidate);
+        }
+        List<K> evicted = new ArrayList<>();
+        while (probationWeight + protectedWeight > mainMaximum) {
+            if (probation.isEmpty()) {
+                demote(pollFirst(protectedSpace));
+            }
+            K victim = probation.iterator().next();
+            K candidate = candidates.isEmpty() ? victim : candidates.get(candidates.size() - 1);
+            K loser = victim;
+            if (!candidate.equals(victim)
+                    && sketch.frequency(candidate) <= sketch.frequency(victim)) {
+                loser = candidate;
+            }
+            candidates.remove(loser);
+            remove(loser);
+            evicted.add(loser);
+        }
+        return evicted;
+    }
+
+    private void demoteProtectedOverflow() {
+        while (protectedWeight > protectedMaximum && protectedSpace.size() > 1) {
+            demote(pollFirst(protectedSpace));
+        }
+    }
+
+    private void demote(K key) {
+        long weight = weights.get(key);
+        protectedWeight -= weight;
+        probation.add(key);
+        probationWeight += weight;
+    }
+
+    private static <K> K pollFirst(LinkedHashSet<K> set) {
+        Iterator<K> iterator = set.iterator();
+        K first = iterator.next();
+        iterator.remove();
+        return first;
+    }
+}
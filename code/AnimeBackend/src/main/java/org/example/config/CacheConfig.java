@@ -0,0 +1,78 @@
+package org.example.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import javax.sql.DataSource;
+import org.example.cache.CacheProperties;
+import org.example.cache.InvalidationBus;
+import org.example.cache.LoopbackInvalidationBus;
+import org.example.cache.PostgresInvalidationBus;
+import org.example.cache.RetainedSizeWeigher;
+import org.example.cache.Weigher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public ThreadPoolTaskScheduler cacheMaintenanceScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("cache-maintenance-");
+        scheduler.setDaemon(true);
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+
+    /**
+     * Reloads hot entries ahead of expiry. A refresh submitted to a full queue is
+     * rejected, and the entry is left to expire and be loaded by the next miss.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(16);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setDaemon(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /** Applies committed changes to the in-memory indexes and entity graph, one at a time. */
+    @Bean
+    public ThreadPoolTaskExecutor indexUpdateExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("index-update-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.invalidation.transport", havingValue = "loopback",
+            matchIfMissing = true)
+    public InvalidationBus loopbackInvalidationBus() {
+        return new LoopbackInvalidationBus();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.invalidation.transport", havingValue = "postgres")
+    public InvalidationBus postgresInvalidationBus(
+            DataSource dataSource, @Value("${cache.invalidation.channel}") String channel) {
+        return new PostgresInvalidationBus(dataSource, channel);
+    }
+
+    @Bean
+    public Weigher searchCacheWeigher() {
+        return new RetainedSizeWeigher();
+    }
+}
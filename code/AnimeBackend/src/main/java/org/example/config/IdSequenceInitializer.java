@@ -0,0 +1,45 @@
+package org.example.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the entity id sequences past the ids already in their tables. The ids used
+ * to come from IDENTITY columns, and Hibernate creates a missing sequence starting at
+ * 1, so without this the first pooled block would collide with existing rows. A
+ * sequence that is already ahead is left alone, so restarting one node never hands
+ * out ids from a block another node still holds.
+ */
+@Component
+public class IdSequenceInitializer {
+    /** Must match the {@code allocationSize} of the entities' sequence generators. */
+    private static final int ALLOCATION_SIZE = 50;
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "country_seq", "country",
+            "city_seq", "city",
+            "nation_seq", "nation");
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Takes the EntityManagerFactory only so the schema update has created the sequences. */
+    public IdSequenceInitializer(EntityManagerFactory entityManagerFactory,
+                                 JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        SEQUENCES.forEach((sequence, table) -> {
+            Long value = jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', GREATEST("
+                    + "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + ALLOCATION_SIZE
+                    + ", (SELECT last_value FROM " + sequence + ")))", Long.class);
+            logger.debug("Sequence {} aligned with table {} at {}", sequence, table, value);
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class LogsConfig {
+
+    /**
+     * Runs log export tasks. Bounded in threads and queue; a task submitted to a full
+     * queue is rejected rather than queued without limit.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor logExportExecutor(
+            @Value("${logs.export.threads:2}") int threads,
+            @Value("${logs.export.queue-capacity:32}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("log-export-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    /**
+     * Delivers export task statuses to their subscribers, so a slow event stream holds up
+     * neither the export threads nor the log index. Each subscriber has at most one
+     * delivery queued at a time.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor logEventExecutor(
+            @Value("${logs.events.threads:2}") int threads,
+            @Value("${logs.events.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("log-events-");
+        executor.setDaemon(true);
+        return executor;
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.example.dto.Suggestion;
+import org.example.service.AutocompleteService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@AllArgsConstructor
+@Tag(name = "Search", description = "Find cities")
+public class AutocompleteController {
+
+    private final AutocompleteService autocompleteService;
+
+    @GetMapping("/autocomplete")
+    @Operation(summary = "Suggest country, city and nation names",
+            description = "Names with a word starting with the query, ignoring case, served"
+                    + " from memory; an empty list if nothing matches")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Suggestions"),
+                   @ApiResponse(responseCode = "400",
+                           description = "Empty query, unknown type or bad limit")
+    })
+    public ResponseEntity<List<Suggestion>> autocomplete(
+            @RequestParam(required = false) @Parameter(description = "Start of a name",
+                    example = "min") String q,
+            @RequestParam(required = false) @Parameter(
+                    description = "country, city or nation; all of them if omitted") String type,
+            @RequestParam(defaultValue = "" + AutocompleteService.DEFAULT_LIMIT) @Parameter(
+                    description = "Maximum number of suggestions") int limit
+    ) {
+        return ResponseEntity.ok(autocompleteService.suggest(q, type, limit));
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.example.cache.CacheRegionStats;
+import org.example.cache.CacheRegions;
+import org.example.cache.SearchCache;
+import org.example.dto.CacheWeightDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api/cache")
+@Tag(name = "Cache", description = "API for inspecting the search cache")
+public class CacheController {
+
+    private final SearchCache searchCache;
+
+    private final CacheRegions cacheRegions;
+
+    @GetMapping("/weight")
+    @Operation(summary = "Get cache weight",
+            description = "Returns the estimated cache size in bytes, the byte budget"
+                    + " and the weight held by each key prefix")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Cache weight returned",
+            content = @Content(schema = @Schema(implementation = CacheWeightDto.class)))
+    })
+    public ResponseEntity<CacheWeightDto> getWeight() {
+        return ResponseEntity.ok(new CacheWeightDto(searchCache.weightedSize(),
+                searchCache.maximumWeight(), searchCache.size(), searchCache.weightsByPrefix()));
+    }
+
+    @GetMapping("/regions")
+    @Operation(summary = "Get cache region statistics",
+            description = "Returns size, weight, TTL and hit/miss counters of every cache region")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Region statistics returned",
+            content = @Content(schema = @Schema(implementation = CacheRegionStats.class)))
+    })
+    public ResponseEntity<List<CacheRegionStats>> getRegionStats() {
+        return ResponseEntity.ok(cacheRegions.stats());
+    }
+}
@@ -8,13 +8,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
-import java.util.Set;
+import java.util.Objects;
 import lombok.AllArgsConstructor;
+import org.example.cache.Dependency;
+import org.example.cache.ResponseCache;
+import org.example.dto.BulkResult;
 import org.example.dto.CityDto;
+import org.example.dto.CitySnapshot;
+import org.example.dto.KeysetPage;
 import org.example.exception.ObjectNotFoundException;
 import org.example.model.City;
 import org.example.service.CityService;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -23,6 +28,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -37,18 +43,49 @@ public class CityController {
 
     private final CityService cityService;
 
+    private final ResponseCache responseCache;
+
     @GetMapping("/cities")
-    @Operation(summary = "Get all cities", description = "Retrieve a list of all cities")
+    @Operation(summary = "Get all cities", description = "Retrieve a list of all cities,"
+            + " or with after/limit one keyset page of them as {items, nextAfter}")
     @ApiResponses({@ApiResponse(responseCode = "200",
             description = "List of cities retrieved successfully",
                     content = @Content(schema = @Schema(implementation = CityDto.class))),
-                   @ApiResponse(responseCode = "204", description = "No cities found")
+                   @ApiResponse(responseCode = "204", description = "No cities found"),
+                   @ApiResponse(responseCode = "304", description = "Not modified")
     })
-    public ResponseEntity<List<CityDto>> getCities() {
-        List<City> cities = cityService.getCities();
-        List<CityDto> cityDtos = cities.stream().map(CityDto::fromEntity).toList();
-        return cityDtos.isEmpty() ? ResponseEntity.noContent().build()
-                : ResponseEntity.ok(cityDtos);
+    public ResponseEntity<byte[]> getCities(
+            @RequestParam(required = false) @Parameter(
+                    description = "Only cities with a greater id; starts keyset paging",
+                    example = "0") Long after,
+            @RequestParam(required = false) @Parameter(
+                    description = "Page size (1-500, default 50); starts keyset paging",
+                    example = "50") Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            @Parameter(hidden = true) String ifNoneMatch) {
+        if (after == null && limit == null) {
+            return responseCache.get("cities", List.of(
+                    Dependency.any(Dependency.EntityType.CITY),
+                    Dependency.any(Dependency.EntityType.COUNTRY)), ifNoneMatch,
+                    cityService::getCities);
+        }
+        long from = after == null ? 0 : after;
+        int size = limit == null ? KeysetPage.DEFAULT_LIMIT : limit;
+        return responseCache.get("cities_page_" + size + "_" + from,
+                CityController::pageDependencies, ifNoneMatch,
+                () -> cityService.getCitiesPage(from, size));
+    }
+
+    private static List<Dependency> pageDependencies(KeysetPage<CitySnapshot> page) {
+        List<Dependency> dependencies = Dependency.ofPage(Dependency.EntityType.CITY,
+                page.items().stream().map(CitySnapshot::id).toList());
+        page.items().stream()
+                .map(CitySnapshot::country)
+                .filter(Objects::nonNull)
+                .map(country -> Dependency.country(country.id()))
+                .distinct()
+                .forEach(dependencies::add);
+        return dependencies;
     }
 
     @GetMapping("/countries/{countryId}/cities")
@@ -59,31 +96,41 @@ public class CityController {
                     content = @Content(schema = @Schema(implementation = CityDto.class))),
                    @ApiResponse(responseCode = "204",
                            description = "No cities found for the country"),
-                   @ApiResponse(responseCode = "404", description = "Country not found")
+                   @ApiResponse(responseCode = "404", description = "Country not found"),
+                   @ApiResponse(responseCode = "304", description = "Not modified")
     })
-    public ResponseEntity<Set<CityDto>> getCitiesByCountryId(
+    public ResponseEntity<byte[]> getCitiesByCountryId(
             @PathVariable @Parameter(description = "ID of the country",
-                    example = "1") Long countryId) {
-        Set<CityDto> cities = cityService.getCitiesByCountryId(countryId);
-        return cities.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(cities);
+                    example = "1") Long countryId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            @Parameter(hidden = true) String ifNoneMatch) {
+        return responseCache.get("cities_country_" + countryId,
+                List.of(Dependency.country(countryId)), ifNoneMatch,
+                () -> cityService.getCitiesByCountryId(countryId));
     }
 
     @PostMapping("/countries/{countryId}/cities")
     @Operation(summary = "Add cities to a country",
             description = "Add one or more cities to a specific country")
     @ApiResponses({@ApiResponse(responseCode = "201", description = "Cities created successfully",
-                    content = @Content(schema = @Schema(implementation = City.class))),
+                    content = @Content(schema = @Schema(implementation = BulkResult.class))),
+                   @ApiResponse(responseCode = "207",
+                           description = "Some cities were rejected, see errors",
+                    content = @Content(schema = @Schema(implementation = BulkResult.class))),
+                   @ApiResponse(responseCode = "422",
+                           description = "All cities were rejected, see errors",
+                    content = @Content(schema = @Schema(implementation = BulkResult.class))),
                    @ApiResponse(responseCode = "400", description = "Invalid city data"),
                    @ApiResponse(responseCode = "404", description = "Country not found")
     })
-    public ResponseEntity<List<City>> addCitiesByCountryId(
+    public ResponseEntity<BulkResult<City>> addCitiesByCountryId(
             @PathVariable @Parameter(description = "ID of the country to add the cities to",
                     example = "1") Long countryId,
             @RequestBody @Parameter(
                     description = "Single city object or list of city objects to add",
                     required = true) List<City> cities) {
-        List<City> addedCities = cityService.addNewCitiesByCountryId(countryId, cities);
-        return ResponseEntity.status(HttpStatus.CREATED).body(addedCities);
+        BulkResult<City> result = cityService.addNewCitiesByCountryId(countryId, cities);
+        return ResponseEntity.status(result.status()).body(result);
     }
 
     @PutMapping("/cities/{id}")
@@ -9,8 +9,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.example.cache.Dependency;
+import org.example.cache.ResponseCache;
+import org.example.dto.BulkResult;
+import org.example.dto.CountrySnapshot;
+import org.example.dto.KeysetPage;
 import org.example.model.Country;
 import org.example.service.CountryService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -20,6 +26,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -34,18 +41,38 @@ public class CountryController {
 
     private final CountryService countryService;
 
+    private final ResponseCache responseCache;
+
     @GetMapping
-    @Operation(summary = "Get all countries", description = "Retrieve a list of all countries")
+    @Operation(summary = "Get all countries", description = "Retrieve a list of all countries,"
+            + " or with after/limit one keyset page of them as {items, nextAfter}")
     @ApiResponses({@ApiResponse(responseCode = "200",
             description = "List of countries retrieved successfully",
                     content = @Content(schema = @Schema(implementation = Country.class))),
-                   @ApiResponse(responseCode = "204", description = "No countries found")
+                   @ApiResponse(responseCode = "204", description = "No countries found"),
+                   @ApiResponse(responseCode = "304", description = "Not modified")
     })
-    public ResponseEntity<List<Country>> getCountries() {
-        List<Country> countries = countryService.getCountries();
-        return countries.isEmpty()
-                ? ResponseEntity.noContent().build()
-                : ResponseEntity.ok(countries);
+    public ResponseEntity<byte[]> getCountries(
+            @RequestParam(required = false) @Parameter(
+                    description = "Only countries with a greater id; starts keyset paging",
+                    example = "0") Long after,
+            @RequestParam(required = false) @Parameter(
+                    description = "Page size (1-500, default 50); starts keyset paging",
+                    example = "50") Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            @Parameter(hidden = true) String ifNoneMatch) {
+        if (after == null && limit == null) {
+            return responseCache.get("countries",
+                    List.of(Dependency.any(Dependency.EntityType.COUNTRY)), ifNoneMatch,
+                    countryService::getCountries);
+        }
+        long from = after == null ? 0 : after;
+        int size = limit == null ? KeysetPage.DEFAULT_LIMIT : limit;
+        return responseCache.get("countries_page_" + size + "_" + from,
+                (KeysetPage<CountrySnapshot> page) -> Dependency.ofPage(
+                        Dependency.EntityType.COUNTRY,
+                        page.items().stream().map(CountrySnapshot::id).toList()),
+                ifNoneMatch, () -> countryService.getCountriesPage(from, size));
     }
 
     @GetMapping("/{id}")
@@ -53,12 +80,16 @@ public class CountryController {
     @ApiResponses({@ApiResponse(responseCode = "200",
             description = "Country retrieved successfully",
                     content = @Content(schema = @Schema(implementation = Country.class))),
-                   @ApiResponse(responseCode = "404", description = "Country not found")
+                   @ApiResponse(responseCode = "404", description = "Country not found"),
+                   @ApiResponse(responseCode = "304", description = "Not modified")
     })
-    public ResponseEntity<Country> getCountryById(
+    public ResponseEntity<byte[]> getCountryById(
             @PathVariable("id") @Parameter(
-                    description = "ID of the country to retrieve", example = "1") Long countryId) {
-        return ResponseEntity.ok(countryService.getCountryById(countryId));
+                    description = "ID of the country to retrieve", example = "1") Long countryId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            @Parameter(hidden = true) String ifNoneMatch) {
+        return responseCache.get("country_" + countryId, List.of(Dependency.country(countryId)),
+                ifNoneMatch, () -> countryService.getCountryById(countryId));
     }
 
     @PostMapping
@@ -79,14 +110,20 @@ public class CountryController {
     @Operation(summary = "Add multiple countries", description = "Create a list of new countries")
     @ApiResponses({@ApiResponse(responseCode = "201",
             description = "Countries created successfully",
-                    content = @Content(schema = @Schema(implementation = Country.class))),
+                    content = @Content(schema = @Schema(implementation = BulkResult.class))),
+                   @ApiResponse(responseCode = "207",
+                           description = "Some countries were rejected, see errors",
+                    content = @Content(schema = @Schema(implementation = BulkResult.class))),
+                   @ApiResponse(responseCode = "422",
+                           description = "All countries were rejected, see errors",
+                    content = @Content(schema = @Schema(implementation = BulkResult.class))),
                    @ApiResponse(responseCode = "400", description = "Invalid countries data")
     })
-    public ResponseEntity<List<Country>> addNewCountries(
+    public ResponseEntity<BulkResult<Country>> addNewCountries(
             @RequestBody @Parameter(description = "List of country objects to add",
                     required = true) List<Country> countries) {
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(countryService.addNewCountries(countries));
+        BulkResult<Country> result = countryService.addNewCountries(countries);
+        return ResponseEntity.status(result.status()).body(result);
     }
 
     @PutMapping("/{id}")
@@ -5,26 +5,26 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.Pattern;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import org.example.exception.LogsException;
-import org.example.exception.ObjectNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import org.example.logs.LogResponses;
 import org.example.service.LogProcessingService;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Validated
 @Tag(name = "Logs", description = "Application logs management endpoints")
@@ -41,13 +41,16 @@ public class LogsController {
     @PostMapping
     @Operation(
             summary = "Start asynchronous log file creation",
-            description = "Initiates the creation of a log file" 
-                    + " for a specific date and returns a task ID."
+            description = "Initiates the creation of a log file"
+                    + " for a specific date and returns a task ID. A date already being"
+                    + " processed returns the ID of that task."
     )
     @ApiResponses(value = {@ApiResponse(responseCode = "202",
             description = "Log file creation started, task ID returned"),
                            @ApiResponse(responseCode = "400",
-                                   description = "Invalid date format or date is in the future")
+                                   description = "Invalid date format or date is in the future"),
+                           @ApiResponse(responseCode = "503",
+                                   description = "Too many log tasks, retry later")
     })
     public ResponseEntity<String> startLogFileCreation(
             @Parameter(description = "Date in yyyy-MM-dd format",
@@ -74,110 +77,153 @@ public class LogsController {
         return ResponseEntity.ok(logProcessingService.getTaskStatus(taskId));
     }
 
+    @GetMapping(value = "/status/{taskId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Follow log file creation",
+            description = "Streams the status of the log file creation task as Server-Sent"
+                    + " Events: one on subscribing, the latest one whenever the status or"
+                    + " progress changes, and the final one, after which the stream ends."
+    )
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Status stream"),
+                           @ApiResponse(responseCode = "404", description = "Task ID not found")
+    })
+    public SseEmitter followLogFileStatus(
+            @Parameter(description = "Task ID of the log file creation",
+                    example = "123e4567-e89b-12d3-a456-426614174000")
+            @PathVariable String taskId) {
+        SseEmitter emitter = new SseEmitter();
+        Runnable unsubscribe = logProcessingService.subscribe(taskId, status -> {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(status));
+                if (status.isFinished()) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return emitter;
+    }
+
+    @DeleteMapping("/{taskId}")
+    @Operation(
+            summary = "Cancel log file creation",
+            description = "Cancels a pending or running log file creation task by task ID."
+    )
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Task cancelled"),
+                           @ApiResponse(responseCode = "404", description = "Task ID not found"),
+                           @ApiResponse(responseCode = "409",
+                                   description = "Task already finished")
+    })
+    public ResponseEntity<LogProcessingService.LogTaskStatus> cancelLogFileCreation(
+            @Parameter(description = "Task ID of the log file creation",
+                    example = "123e4567-e89b-12d3-a456-426614174000")
+            @PathVariable String taskId) {
+        return ResponseEntity.ok(logProcessingService.cancelTask(taskId));
+    }
+
     @GetMapping("/file/{taskId}")
     @Operation(
             summary = "Download log file by task ID",
             description = "Downloads the log file for a completed task by task ID."
+                    + " Supports a single byte Range to resume the download."
     )
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Log file downloaded"), 
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Log file downloaded"),
+                           @ApiResponse(responseCode = "206",
+                                   description = "Requested part of the log file downloaded"),
                            @ApiResponse(responseCode = "404",
-                                   description = "Task ID not found or file not available")
+                                   description = "Task ID not found or file not available"),
+                           @ApiResponse(responseCode = "416",
+                                   description = "Range outside the log file")
     })
-    public ResponseEntity<InputStreamResource> downloadLogFile(
+    public ResponseEntity<StreamingResponseBody> downloadLogFile(
             @Parameter(description = "Task ID of the log file creation",
                     example = "123e4567-e89b-12d3-a456-426614174000")
-            @PathVariable String taskId) throws IOException {
-        Path logFile = logProcessingService.getLogFilePath(taskId);
-        if (!Files.exists(logFile)) {
-            throw new ObjectNotFoundException("Log file not found for task ID: " + taskId);
-        }
-        InputStream inputStream = Files.newInputStream(logFile);
-        InputStreamResource resource = new InputStreamResource(inputStream);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=log_" + taskId + ".log");
-        headers.add(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
-        headers.add(HttpHeaders.PRAGMA, "no-cache");
-        headers.add(HttpHeaders.EXPIRES, "0");
-
-        ResponseEntity<InputStreamResource> response = ResponseEntity.ok()
-                .headers(headers)
-                .contentLength(Files.size(logFile))
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(resource);
-
-        Files.deleteIfExists(logFile);
-        return response;
+            @PathVariable String taskId,
+            @Parameter(hidden = true) HttpServletRequest request) {
+        return LogResponses.of(logProcessingService.getDayLog(taskId),
+                MediaType.APPLICATION_OCTET_STREAM, download("log_" + taskId + ".log"), request);
     }
 
     @GetMapping
     @Operation(
-            summary = "View or download logs by date",
-            description = "Returns log entries for a specific date. If "
-                    + "the Accept header is 'application/octet-stream', a file will be downloaded."
+            summary = "View logs by date",
+            description = "Returns log entries for a specific date as text."
+                    + " The entries are looked up without holding a request thread."
     )
     @ApiResponses(value = {@ApiResponse(responseCode = "200",
             description = "Logs found and returned"),
+                           @ApiResponse(responseCode = "206",
+                                   description = "Requested byte Range of the logs returned"),
                            @ApiResponse(responseCode = "400",
                                    description = "Invalid date format or date is in the future"),
                            @ApiResponse(responseCode = "404",
                                    description = "No logs found for the specified date or"
                                           + " log file not found"),
+                           @ApiResponse(responseCode = "416",
+                                   description = "Range outside the logs of that date"),
+                           @ApiResponse(responseCode = "503",
+                                   description = "Too many log lookups, retry later"),
                            @ApiResponse(responseCode = "500",
                                    description = "Internal server error while processing log files")
     })
-    public ResponseEntity<Object> downloadOrViewLogs(
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> viewLogs(
             @Parameter(description = "Date in yyyy-MM-dd format",
                     example = "2025-04-24", required = true)
             @RequestParam(name = "date")
             @Pattern(regexp = "\\d{4}-\\d{2}-\\d{2}", message = "Date must be in yyyy-MM-dd format")
             String date,
-            @RequestHeader(value = HttpHeaders.ACCEPT, required = false,
-                    defaultValue = MediaType.TEXT_PLAIN_VALUE) String acceptHeader
-    ) throws IOException {
-        String taskId = logProcessingService.startLogFileCreation(date);
-        LogProcessingService.LogTaskStatus status = logProcessingService.getTaskStatus(taskId);
-
-        while (!"COMPLETED".equals(status.getStatus()) && !"FAILED".equals(status.getStatus())) {
-            try {
-                Thread.sleep(9000);
-                status = logProcessingService.getTaskStatus(taskId);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new LogsException("Interrupted while waiting for log file creation");
-            }
-        }
-
-        if ("FAILED".equals(status.getStatus())) {
-            throw new LogsException("Log file creation failed: " + status.getErrorMessage());
-        }
-
-        Path logFile = logProcessingService.getLogFilePath(taskId);
-        String filteredLogs = Files.readString(logFile);
-
-        if (acceptHeader.contains(MediaType.APPLICATION_OCTET_STREAM_VALUE)) {
-            InputStream inputStream = Files.newInputStream(logFile);
-            InputStreamResource resource = new InputStreamResource(inputStream);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + date + ".log");
-            headers.add(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
-            headers.add(HttpHeaders.PRAGMA, "no-cache");
-            headers.add(HttpHeaders.EXPIRES, "0");
-
-            ResponseEntity<Object> response = ResponseEntity.ok()
-                    .headers(headers)
-                    .contentLength(Files.size(logFile))
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(resource);
+            @Parameter(hidden = true) HttpServletRequest request
+    ) {
+        return logProcessingService.findLogsAsync(date).thenApply(log -> LogResponses.ofAsync(log,
+                new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8), new HttpHeaders(),
+                request));
+    }
 
-            Files.deleteIfExists(logFile);
-            return response;
-        }
+    @GetMapping(produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(
+            summary = "Download logs by date",
+            description = "Downloads the log entries for a specific date as a file when the"
+                    + " Accept header is 'application/octet-stream'. Served from the request"
+                    + " thread, so Tomcat can send the file zero-copy. Supports a single byte"
+                    + " Range to resume the download."
+    )
+    @ApiResponses(value = {@ApiResponse(responseCode = "200",
+            description = "Log file downloaded"),
+                           @ApiResponse(responseCode = "206",
+                                   description = "Requested byte Range of the logs returned"),
+                           @ApiResponse(responseCode = "400",
+                                   description = "Invalid date format or date is in the future"),
+                           @ApiResponse(responseCode = "404",
+                                   description = "No logs found for the specified date or"
+                                          + " log file not found"),
+                           @ApiResponse(responseCode = "416",
+                                   description = "Range outside the logs of that date"),
+                           @ApiResponse(responseCode = "500",
+                                   description = "Internal server error while processing log files")
+    })
+    public ResponseEntity<StreamingResponseBody> downloadLogs(
+            @Parameter(description = "Date in yyyy-MM-dd format",
+                    example = "2025-04-24", required = true)
+            @RequestParam(name = "date")
+            @Pattern(regexp = "\\d{4}-\\d{2}-\\d{2}", message = "Date must be in yyyy-MM-dd format")
+            String date,
+            @Parameter(hidden = true) HttpServletRequest request
+    ) {
+        return LogResponses.of(logProcessingService.findLogs(date),
+                MediaType.APPLICATION_OCTET_STREAM, download(date + ".log"), request);
+    }
 
-        Files.deleteIfExists(logFile);
-        return ResponseEntity.ok()
-                .contentType(MediaType.TEXT_PLAIN)
-                .body(filteredLogs);
+    /** Headers of a download that is never cached. */
+    private static HttpHeaders download(String filename) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        headers.add(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
+        headers.add(HttpHeaders.PRAGMA, "no-cache");
+        headers.add(HttpHeaders.EXPIRES, "0");
+        return headers;
     }
 }
@@ -8,11 +8,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
-import java.util.Set;
 import lombok.AllArgsConstructor;
+import org.example.cache.Dependency;
+import org.example.cache.ResponseCache;
+import org.example.dto.BulkResult;
+import org.example.dto.KeysetPage;
+import org.example.dto.NationSnapshot;
 import org.example.model.Country;
 import org.example.model.Nation;
 import org.example.service.NationService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -22,6 +27,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -36,6 +42,8 @@ public class NationController {
 
     private final NationService nationService;
 
+    private final ResponseCache responseCache;
+
     @GetMapping("/countries/{countryId}/nations")
     @Operation(summary = "Get nations by country ID",
             description = "Retrieve a list of nations for a specific country")
@@ -44,25 +52,49 @@ public class NationController {
                     content = @Content(schema = @Schema(implementation = Nation.class))),
                    @ApiResponse(responseCode = "204",
                            description = "No nations found for the country"),
-                   @ApiResponse(responseCode = "404", description = "Country not found")
+                   @ApiResponse(responseCode = "404", description = "Country not found"),
+                   @ApiResponse(responseCode = "304", description = "Not modified")
     })
-    public ResponseEntity<Set<Nation>> getNationsByCountryId(
+    public ResponseEntity<byte[]> getNationsByCountryId(
             @PathVariable @Parameter(description = "ID of the country to retrieve nations for",
-                    example = "1") Long countryId) {
-        Set<Nation> nations = nationService.getNationsByCountryId(countryId);
-        return nations.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(nations);
+                    example = "1") Long countryId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            @Parameter(hidden = true) String ifNoneMatch) {
+        return responseCache.get("nations_country_" + countryId, List.of(
+                Dependency.country(countryId), Dependency.any(Dependency.EntityType.NATION)),
+                ifNoneMatch, () -> nationService.getNationsByCountryId(countryId));
     }
 
     @GetMapping("/nations")
-    @Operation(summary = "Get all nations", description = "Retrieve a list of all nations")
+    @Operation(summary = "Get all nations", description = "Retrieve a list of all nations,"
+            + " or with after/limit one keyset page of them as {items, nextAfter}")
     @ApiResponses({@ApiResponse(responseCode = "200",
             description = "List of nations retrieved successfully",
                     content = @Content(schema = @Schema(implementation = Nation.class))),
-                   @ApiResponse(responseCode = "204", description = "No nations found")
+                   @ApiResponse(responseCode = "204", description = "No nations found"),
+                   @ApiResponse(responseCode = "304", description = "Not modified")
     })
-    public ResponseEntity<List<Nation>> getNations() {
-        List<Nation> nations = nationService.getNations();
-        return nations.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(nations);
+    public ResponseEntity<byte[]> getNations(
+            @RequestParam(required = false) @Parameter(
+                    description = "Only nations with a greater id; starts keyset paging",
+                    example = "0") Long after,
+            @RequestParam(required = false) @Parameter(
+                    description = "Page size (1-500, default 50); starts keyset paging",
+                    example = "50") Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            @Parameter(hidden = true) String ifNoneMatch) {
+        if (after == null && limit == null) {
+            return responseCache.get("nations",
+                    List.of(Dependency.any(Dependency.EntityType.NATION)), ifNoneMatch,
+                    nationService::getNations);
+        }
+        long from = after == null ? 0 : after;
+        int size = limit == null ? KeysetPage.DEFAULT_LIMIT : limit;
+        return responseCache.get("nations_page_" + size + "_" + from,
+                (KeysetPage<NationSnapshot> page) -> Dependency.ofPage(
+                        Dependency.EntityType.NATION,
+                        page.items().stream().map(NationSnapshot::id).toList()),
+                ifNoneMatch, () -> nationService.getNationsPage(from, size));
     }
 
     @GetMapping("/nations/{nationId}/countries")
@@ -73,14 +105,17 @@ public class NationController {
                     content = @Content(schema = @Schema(implementation = Country.class))),
                    @ApiResponse(responseCode = "204",
                            description = "No countries found for the nation"),
-                   @ApiResponse(responseCode = "404", description = "Nation not found")
+                   @ApiResponse(responseCode = "404", description = "Nation not found"),
+                   @ApiResponse(responseCode = "304", description = "Not modified")
     })
-    public ResponseEntity<Set<Country>> getCountriesByNationId(
+    public ResponseEntity<byte[]> getCountriesByNationId(
             @PathVariable @Parameter(description = "ID of the nation to retrieve countries for",
-                    example = "1") Long nationId) {
-        Set<Country> countries = nationService.getCountriesByNationId(nationId);
-        return countries.isEmpty() ? ResponseEntity.noContent().build() :
-                ResponseEntity.ok(countries);
+                    example = "1") Long nationId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            @Parameter(hidden = true) String ifNoneMatch) {
+        return responseCache.get("countries_nation_" + nationId, List.of(
+                Dependency.nation(nationId), Dependency.any(Dependency.EntityType.COUNTRY)),
+                ifNoneMatch, () -> nationService.getCountriesByNationId(nationId));
     }
 
     @PostMapping("/countries/{countryId}/nations")
@@ -104,17 +139,23 @@ public class NationController {
     @Operation(summary = "Add multiple nations to a country",
             description = "Add a list of new nations to a specific country")
     @ApiResponses({@ApiResponse(responseCode = "201", description = "Nations created successfully",
-                    content = @Content(schema = @Schema(implementation = Nation.class))),
+                    content = @Content(schema = @Schema(implementation = BulkResult.class))),
+                   @ApiResponse(responseCode = "207",
+                           description = "Some nations were rejected, see errors",
+                    content = @Content(schema = @Schema(implementation = BulkResult.class))),
+                   @ApiResponse(responseCode = "422",
+                           description = "All nations were rejected, see errors",
+                    content = @Content(schema = @Schema(implementation = BulkResult.class))),
                    @ApiResponse(responseCode = "400", description = "Invalid nations data"),
                    @ApiResponse(responseCode = "404", description = "Country not found")
     })
-    public ResponseEntity<List<Nation>> addNewNationsByCountryId(
+    public ResponseEntity<BulkResult<Nation>> addNewNationsByCountryId(
             @PathVariable @Parameter(description = "ID of the country to add the nations to",
                     example = "1") Long countryId,
             @RequestBody @Parameter(description = "List of nation objects to add",
                     required = true) List<Nation> nations) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(nationService
-                .addNewNationsByCountryId(countryId, nations));
+        BulkResult<Nation> result = nationService.addNewNationsByCountryId(countryId, nations);
+        return ResponseEntity.status(result.status()).body(result);
     }
 
     @PutMapping("/nations/{id}")
@@ -1,10 +1,14 @@
 package org.example.controller;
 
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import org.example.dto.CountryDto;
-import org.example.service.CountryService;
+import org.example.service.CitySearchService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,15 +22,25 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Search", description = "Find cities")
 public class SearchController {
 
-    private final CountryService countryService;
+    private final CitySearchService citySearchService;
 
     @GetMapping("/search")
+    @Operation(summary = "Find countries by city name",
+            description = "Countries with a city whose name contains the query, ignoring case;"
+                    + " exact names first, then prefixes, then other substrings")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Countries found"),
+                   @ApiResponse(responseCode = "400", description = "Empty query or bad limit"),
+                   @ApiResponse(responseCode = "404", description = "No city matches")
+    })
     public ResponseEntity<List<CountryDto>> searchCountriesByCity(
-            @RequestParam(required = false) String cityName
+            @RequestParam(required = false) @Parameter(description = "Part of a city name",
+                    example = "mins") String cityName,
+            @RequestParam(defaultValue = "" + CitySearchService.DEFAULT_LIMIT) @Parameter(
+                    description = "Maximum number of countries") int limit
     ) {
-        List<CountryDto> list = countryService.searchCountriesByCityName(cityName);
+        List<CountryDto> list = citySearchService.searchCountriesByCityName(cityName, limit);
         return list.isEmpty()
                 ? ResponseEntity.status(HttpStatus.NOT_FOUND).body(null)
                 : ResponseEntity.ok(list);
     }
-}
\ No newline at end of file
+}
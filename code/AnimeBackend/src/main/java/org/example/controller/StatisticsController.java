@@ -0,0 +1,93 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.example.dto.CountryStatistics;
+import org.example.dto.GroupStatistics;
+import org.example.dto.NationStatistics;
+import org.example.dto.StatisticsSummary;
+import org.example.service.StatisticsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("api/statistics")
+@Tag(name = "Statistics", description = "Totals over countries, cities and nations,"
+        + " maintained incrementally as they change")
+@CrossOrigin
+public class StatisticsController {
+
+    private final StatisticsService statisticsService;
+
+    @GetMapping
+    @Operation(summary = "Get overall totals",
+            description = "Number of countries, cities and nations, and the summed population"
+                    + " and area of all cities")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Totals returned")})
+    public ResponseEntity<StatisticsSummary> getSummary() {
+        return ResponseEntity.ok(statisticsService.getSummary());
+    }
+
+    @GetMapping("/countries")
+    @Operation(summary = "Get statistics of every country",
+            description = "Per country: cities with their summed population and area,"
+                    + " nations and GDP per capita")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Statistics returned")})
+    public ResponseEntity<List<CountryStatistics>> getCountries() {
+        return ResponseEntity.ok(statisticsService.getCountries());
+    }
+
+    @GetMapping("/countries/{id}")
+    @Operation(summary = "Get statistics of a country")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Statistics returned"),
+                   @ApiResponse(responseCode = "404", description = "Country not found")
+    })
+    public ResponseEntity<CountryStatistics> getCountry(
+            @PathVariable("id") @Parameter(description = "ID of the country",
+                    example = "1") Long countryId) {
+        return ResponseEntity.ok(statisticsService.getCountry(countryId));
+    }
+
+    @GetMapping("/nations")
+    @Operation(summary = "Count countries per nation")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Counts returned")})
+    public ResponseEntity<List<NationStatistics>> getNations() {
+        return ResponseEntity.ok(statisticsService.getNations());
+    }
+
+    @GetMapping("/languages")
+    @Operation(summary = "Count countries per language",
+            description = "Countries having a nation with each language, most countries first")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Counts returned")})
+    public ResponseEntity<List<GroupStatistics>> getLanguages() {
+        return ResponseEntity.ok(statisticsService.getLanguages());
+    }
+
+    @GetMapping("/religions")
+    @Operation(summary = "Count countries per religion",
+            description = "Countries having a nation with each religion, most countries first")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Counts returned")})
+    public ResponseEntity<List<GroupStatistics>> getReligions() {
+        return ResponseEntity.ok(statisticsService.getReligions());
+    }
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Rebuild statistics from the database",
+            description = "Recomputes every aggregate in the background, for recovery")
+    @ApiResponses({@ApiResponse(responseCode = "202", description = "Rebuild scheduled")})
+    public ResponseEntity<Void> rebuild() {
+        statisticsService.rebuild();
+        return ResponseEntity.accepted().build();
+    }
+}
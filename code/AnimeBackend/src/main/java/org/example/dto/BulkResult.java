@@ -0,0 +1,28 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Outcome of a bulk insert: the rows that were created and, by their position in the
+ * request, the rows that were rejected and why. Rejected rows don't stop the others.
+ */
+public record BulkResult<T>(List<T> created, List<RowError> errors) {
+
+    /**
+     * {@code 201 Created} if every row was created, {@code 422 Unprocessable Entity} if
+     * none was, and {@code 207 Multi-Status} otherwise.
+     */
+    @JsonIgnore
+    public HttpStatus status() {
+        if (errors.isEmpty()) {
+            return HttpStatus.CREATED;
+        }
+        return created.isEmpty() ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.MULTI_STATUS;
+    }
+
+    /** A rejected row: its index in the request, its name and the reason. */
+    public record RowError(int index, String name, String message) {
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.dto;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CacheWeightDto {
+    private long weightedSize;
+    private long maximumWeight;
+    private int entries;
+    private Map<String, Long> weightByPrefix;
+}
@@ -0,0 +1,5 @@
+package org.example.dto;
+
+/** The columns of a city that the statistics add up; {@code countryId} may be null. */
+public record CityFigures(long id, Long countryId, Double population, Double areaSquareKm) {
+}
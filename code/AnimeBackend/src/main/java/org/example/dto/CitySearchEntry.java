@@ -0,0 +1,5 @@
+package org.example.dto;
+
+/** What the city search index keeps of a city: its name and the country it is in. */
+public record CitySearchEntry(long id, String name, long countryId) {
+}
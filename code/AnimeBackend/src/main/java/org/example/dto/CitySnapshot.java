@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import org.example.model.City;
+
+/**
+ * Immutable, session-free copy of a city with a summary of its country; serializes
+ * like {@link CityDto}.
+ */
+public record CitySnapshot(long id, String name, Double population, Double areaSquareKm,
+                           CountrySnapshot country) {
+
+    /** Snapshot of {@code city} sharing an already built country summary. */
+    public static CitySnapshot of(City city, CountrySnapshot country) {
+        return new CitySnapshot(city.getId(), city.getName(), city.getPopulation(),
+                city.getAreaSquareKm(), country);
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.dto;
+
+import java.util.List;
+
+/** One line of the NDJSON export: a country with its cities and nations. */
+public record CountryExport(long id, String name, String capital, Double population,
+                            Double areaSquareKm, Double gdp, List<CitySnapshot> cities,
+                            List<NationSnapshot> nations) {
+}
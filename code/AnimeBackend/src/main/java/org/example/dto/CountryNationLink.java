@@ -0,0 +1,5 @@
+package org.example.dto;
+
+/** One row of the country-nation link table. */
+public record CountryNationLink(long countryId, long nationId) {
+}
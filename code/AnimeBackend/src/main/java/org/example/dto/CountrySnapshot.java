@@ -0,0 +1,34 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.example.model.City;
+import org.example.model.Country;
+import org.example.model.Nation;
+
+/**
+ * Immutable, session-free copy of a country as it is cached and served. Serializes
+ * exactly like the {@link Country} entity; the city and nation ids are kept for cache
+ * dependency tracking only and are not part of the JSON.
+ */
+public record CountrySnapshot(long id, String name, String capital, Double population,
+                              Double areaSquareKm, Double gdp,
+                              @JsonIgnore long[] cityIds, @JsonIgnore long[] nationIds) {
+    private static final long[] NO_IDS = new long[0];
+
+    /** Snapshot of a country whose cities and nations are already loaded. */
+    public static CountrySnapshot of(Country country) {
+        return new CountrySnapshot(country.getId(), country.getName(), country.getCapital(),
+                country.getPopulation(), country.getAreaSquareKm(), country.getGdp(),
+                country.getCities() == null ? NO_IDS
+                        : country.getCities().stream().mapToLong(City::getId).toArray(),
+                country.getNations() == null ? NO_IDS
+                        : country.getNations().stream().mapToLong(Nation::getId).toArray());
+    }
+
+    /** Snapshot of the country's own columns only, as nested in a city. */
+    public static CountrySnapshot summaryOf(Country country) {
+        return new CountrySnapshot(country.getId(), country.getName(), country.getCapital(),
+                country.getPopulation(), country.getAreaSquareKm(), country.getGdp(),
+                NO_IDS, NO_IDS);
+    }
+}
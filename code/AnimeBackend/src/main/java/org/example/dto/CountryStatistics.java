@@ -0,0 +1,9 @@
+package org.example.dto;
+
+/**
+ * Aggregates of one country: its cities and their summed population and area, its
+ * nations, and GDP per capita from its own population, or its cities' if it has none.
+ */
+public record CountryStatistics(long id, String name, int cities, double cityPopulation,
+                                double cityAreaSquareKm, int nations, Double gdpPerCapita) {
+}
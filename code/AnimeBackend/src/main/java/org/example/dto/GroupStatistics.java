@@ -0,0 +1,5 @@
+package org.example.dto;
+
+/** How many countries have a nation with the given value, such as a language. */
+public record GroupStatistics(String value, int countries) {
+}
@@ -0,0 +1,34 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * One page of a listing ordered by id. Pass {@code nextAfter} as {@code after} to get
+ * the following page; it is absent on the last page.
+ */
+public record KeysetPage<T>(List<T> items, Long nextAfter) {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    /** Checks a requested page size. */
+    public static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Page limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    /** A page of at most {@code limit} items; it is the last one if it came back short. */
+    public static <T> KeysetPage<T> of(List<T> items, int limit, ToLongFunction<T> idOf) {
+        Long nextAfter = items.size() < limit ? null
+                : idOf.applyAsLong(items.get(items.size() - 1));
+        return new KeysetPage<>(List.copyOf(items), nextAfter);
+    }
+
+    @JsonIgnore
+    public boolean isLast() {
+        return nextAfter == null;
+    }
+}
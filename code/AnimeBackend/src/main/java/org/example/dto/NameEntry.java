@@ -0,0 +1,5 @@
+package org.example.dto;
+
+/** An entity's id and name, all the autocomplete index keeps of it. */
+public record NameEntry(long id, String name) {
+}
@@ -0,0 +1,12 @@
+package org.example.dto;
+
+import org.example.model.Nation;
+
+/** Immutable, session-free copy of a nation; serializes like the {@link Nation} entity. */
+public record NationSnapshot(long id, String name, String language, String religion) {
+
+    public static NationSnapshot of(Nation nation) {
+        return new NationSnapshot(nation.getId(), nation.getName(), nation.getLanguage(),
+                nation.getReligion());
+    }
+}
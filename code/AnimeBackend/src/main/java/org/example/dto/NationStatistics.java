@@ -0,0 +1,5 @@
+package org.example.dto;
+
+/** How many countries a nation lives in. */
+public record NationStatistics(long id, String name, int countries) {
+}
@@ -0,0 +1,6 @@
+package org.example.dto;
+
+/** Totals over everything: how many countries, cities and nations, and city sums. */
+public record StatisticsSummary(int countries, int cities, int nations, double cityPopulation,
+                                double cityAreaSquareKm) {
+}
@@ -0,0 +1,7 @@
+package org.example.dto;
+
+import org.example.cache.Dependency;
+
+/** An autocomplete match: what kind of entity it is, its id and its name. */
+public record Suggestion(Dependency.EntityType type, long id, String name) {
+}
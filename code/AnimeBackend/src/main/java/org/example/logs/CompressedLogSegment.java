@@ -0,0 +1,25 @@
+package org.example.logs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/** A closed, gzipped log segment, decompressed while it is streamed. */
+public record CompressedLogSegment(Path file) implements LogSegment {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public long length() {
+        return -1;
+    }
+
+    @Override
+    public void transferTo(OutputStream out) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+            in.transferTo(out);
+        }
+    }
+}
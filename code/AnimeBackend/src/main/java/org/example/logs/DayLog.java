@@ -0,0 +1,69 @@
+package org.example.logs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/** The log entries of a day: its segments, oldest first. */
+public record DayLog(LocalDate day, List<LogSegment> segments) {
+
+    public DayLog {
+        segments = List.copyOf(segments);
+    }
+
+    /** Total bytes of the entries, or {@code -1} if a segment is compressed. */
+    public long length() {
+        long length = 0;
+        for (LogSegment segment : segments) {
+            if (segment.length() < 0) {
+                return -1;
+            }
+            length += segment.length();
+        }
+        return length;
+    }
+
+    /** The entries as one byte range of a plain file, if they are held in one. */
+    public Optional<LogRange> range() {
+        return segments.size() == 1 && segments.get(0) instanceof LogRange range
+                ? Optional.of(range)
+                : Optional.empty();
+    }
+
+    /** Whether the entries are all held in plain files, so they can be sliced. */
+    public boolean isPlain() {
+        return segments.stream().allMatch(LogRange.class::isInstance);
+    }
+
+    /**
+     * The bytes {@code [from, to)} of the entries, counted over the segments end to end,
+     * as the parts of the segments holding them. Only a plain log can be sliced.
+     */
+    public DayLog slice(long from, long to) {
+        if (!isPlain() || from < 0 || to < from || to > length()) {
+            throw new IllegalArgumentException("Slice out of range");
+        }
+        List<LogSegment> parts = new ArrayList<>();
+        long offset = 0;
+        for (LogSegment segment : segments) {
+            LogRange range = (LogRange) segment;
+            long first = Math.max(from - offset, 0);
+            long last = Math.min(to - offset, range.length());
+            if (first < last) {
+                parts.add(range.slice(first, last));
+            }
+            offset += range.length();
+        }
+        return new DayLog(day, parts);
+    }
+
+    /** Writes every segment to {@code out} in order. Leaves {@code out} open. */
+    public void transferTo(OutputStream out) throws IOException {
+        for (LogSegment segment : segments) {
+            segment.transferTo(out);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Sparse index from each day to the byte offsets where its entries start in an
+ * append-only log whose lines begin with {@code yyyy-MM-dd}. Since the log is written
+ * in time order, a day is normally one contiguous range from its first line to the
+ * first line of the next day, stack traces and other continuation lines included, and
+ * finding it is a map lookup instead of a scan. Each range ends at the first change of
+ * day in the file after it, not at the next later date, so a clock set back cannot
+ * make it reach past the lines that follow it; a day the clock returns to afterwards
+ * gets one range per stretch, in file order. Each lookup first indexes only the complete
+ * lines appended since the last one, reading the file through a direct buffer
+ * without decoding it. If the file shrinks or is replaced it is indexed again.
+ */
+public class LogIndex {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DATE_LENGTH = 10;
+
+    private final Path file;
+    private final Map<LocalDate, List<Long>> dayStarts = new HashMap<>();
+    private final NavigableSet<Long> boundaries = new TreeSet<>();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private Object fileKey;
+    private long indexedUpTo;
+    private LocalDate lastDay;
+
+    public LogIndex(Path file) {
+        this.file = file;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * The bytes of the entries of {@code day}, one range per stretch of the file written
+     * on that day, or empty if the log has none. Fails with {@link NoSuchFileException}
+     * if there is no log file.
+     */
+    public List<LogRange> find(LocalDate day) throws IOException {
+        return find(day, done -> { });
+    }
+
+    /**
+     * As {@link #find(LocalDate)}, telling {@code progress} the share of the newly
+     * appended bytes indexed so far, from 0 to 1.
+     */
+    public synchronized List<LogRange> find(LocalDate day, DoubleConsumer progress)
+            throws IOException {
+        refresh(progress);
+        List<LogRange> ranges = new ArrayList<>();
+        for (long start : dayStarts.getOrDefault(day, List.of())) {
+            Long next = boundaries.higher(start);
+            ranges.add(new LogRange(file, start, next == null ? indexedUpTo : next));
+        }
+        return ranges;
+    }
+
+    /** Indexes the lines appended since the last lookup, so the next one needn't. */
+    public synchronized void refresh() throws IOException {
+        refresh(done -> { });
+    }
+
+    private void refresh(DoubleConsumer progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Object key = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+            long size = channel.size();
+            if (size < indexedUpTo || key != null && !key.equals(fileKey)) {
+                dayStarts.clear();
+                boundaries.clear();
+                indexedUpTo = 0;
+                lastDay = null;
+            }
+            fileKey = key;
+            if (size > indexedUpTo) {
+                scan(channel, size, progress);
+            }
+        }
+    }
+
+    /** Indexes the complete lines in {@code [indexedUpTo, size)}. */
+    private void scan(FileChannel channel, long size, DoubleConsumer progress)
+            throws IOException {
+        long from = indexedUpTo;
+        byte[] date = new byte[DATE_LENGTH];
+        long position = indexedUpTo;
+        long lineStart = indexedUpTo;
+        int dateBytes = 0;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            buffer.flip();
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    if (dateBytes == DATE_LENGTH) {
+                        startsDay(date, lineStart);
+                    }
+                    lineStart = position + i + 1;
+                    indexedUpTo = lineStart;
+                    dateBytes = 0;
+                } else if (dateBytes < DATE_LENGTH && position + i - lineStart == dateBytes) {
+                    date[dateBytes++] = b;
+                }
+            }
+            position += read;
+            progress.accept((double) (position - from) / (size - from));
+        }
+    }
+
+    private void startsDay(byte[] date, long offset) {
+        LocalDate day = parse(date);
+        if (day != null && !day.equals(lastDay)) {
+            dayStarts.computeIfAbsent(day, d -> new ArrayList<>()).add(offset);
+            boundaries.add(offset);
+            lastDay = day;
+        }
+    }
+
+    /** The date a line starts with, or {@code null} if it doesn't start with one. */
+    private static LocalDate parse(byte[] date) {
+        if (date[4] != '-' || date[7] != '-') {
+            return null;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 2);
+        int day = digits(date, 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(byte[] bytes, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + bytes[i] - '0';
+        }
+        return value;
+    }
+}
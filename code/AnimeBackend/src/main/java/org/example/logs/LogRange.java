@@ -0,0 +1,54 @@
+package org.example.logs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** The bytes {@code [start, end)} of a plain log file. */
+public record LogRange(Path file, long start, long end) implements LogSegment {
+
+    @Override
+    public long length() {
+        return end - start;
+    }
+
+    /** The bytes {@code [from, to)} of this range, counted from its start. */
+    public LogRange slice(long from, long to) {
+        if (from < 0 || to < from || to > length()) {
+            throw new IllegalArgumentException("Slice out of range");
+        }
+        return new LogRange(file, start + from, start + to);
+    }
+
+    /**
+     * A strong entity tag for the range; a day still being written grows and gets a
+     * new tag, so a resumed download never mixes two versions of it.
+     */
+    public String etag() {
+        return "\"" + Long.toHexString(start) + "-" + Long.toHexString(end) + "\"";
+    }
+
+    /**
+     * Copies the range to {@code out} with {@link FileChannel#transferTo}, without
+     * decoding it. Only a file or socket target is zero-copy; into any other stream the
+     * JDK copies through a buffer. Leaves {@code out} open.
+     */
+    @Override
+    public void transferTo(OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.logs;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Responses serving a {@link DayLog} straight from the log files. A single
+ * {@code Range} is honoured with {@code 206 Partial Content}, guarded by
+ * {@code If-Range}, so a download of a large day can be resumed; a day spread over
+ * several plain segments is addressed as their concatenation. On Tomcat the bytes of
+ * a synchronous request held in one file are left to the connector's sendfile, the
+ * same zero-copy path its default servlet uses for static files; otherwise, and for
+ * small ranges, they are streamed with {@link LogRange#transferTo}. Nothing is copied
+ * to a temporary file.
+ */
+public final class LogResponses {
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    /** Below this writing the bytes is cheaper than setting up sendfile, as in Tomcat. */
+    private static final long MIN_SENDFILE_LENGTH = 48 * 1024;
+
+    private LogResponses() {
+    }
+
+    /**
+     * Serves the entries of a day, or the part of them the request's {@code Range} asks
+     * for. Compressed segments are streamed whole without {@code Range} support, and
+     * without a length since it is not known before decompressing. {@code headers} are
+     * sent with every response except {@code 416}.
+     */
+    public static ResponseEntity<StreamingResponseBody> of(DayLog log, MediaType type,
+                                                           HttpHeaders headers,
+                                                           HttpServletRequest request) {
+        return of(log, type, headers, request, true);
+    }
+
+    /**
+     * As {@link #of(DayLog, MediaType, HttpHeaders, HttpServletRequest)}, for a response
+     * completed asynchronously, which always writes the bytes itself: it may be built on
+     * the request's thread before the request goes asynchronous, too early to tell.
+     */
+    public static ResponseEntity<StreamingResponseBody> ofAsync(DayLog log, MediaType type,
+                                                                HttpHeaders headers,
+                                                                HttpServletRequest request) {
+        return of(log, type, headers, request, false);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> of(DayLog log, MediaType type,
+                                                            HttpHeaders headers,
+                                                            HttpServletRequest request,
+                                                            boolean sendfile) {
+        HttpHeaders responseHeaders = new HttpHeaders();
+        if (!log.isPlain()) {
+            responseHeaders.set(HttpHeaders.ACCEPT_RANGES, "none");
+            responseHeaders.addAll(headers);
+            responseHeaders.setContentType(type);
+            return ResponseEntity.ok().headers(responseHeaders).body(log::transferTo);
+        }
+        responseHeaders.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String etag = etag(log);
+        responseHeaders.setETag(etag);
+
+        DayLog body = log;
+        HttpStatus status = HttpStatus.OK;
+        HttpRange requested = requestedRange(request, etag);
+        if (requested != null) {
+            long length = log.length();
+            long first = -1;
+            long last = -1;
+            try {
+                first = requested.getRangeStart(length);
+                last = requested.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                // Unsatisfiable; answered below
+            }
+            if (first < 0 || first >= length || last < first) {
+                responseHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .headers(responseHeaders)
+                        .build();
+            }
+            body = log.slice(first, last + 1);
+            status = HttpStatus.PARTIAL_CONTENT;
+            responseHeaders.set(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + first + "-" + last + "/" + length);
+        }
+
+        responseHeaders.addAll(headers);
+        responseHeaders.setContentType(type);
+        responseHeaders.setContentLength(body.length());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                .headers(responseHeaders);
+        Optional<LogRange> range = body.range();
+        return sendfile && range.isPresent() && sendfile(request, range.get())
+                ? response.build()
+                : response.body(body::transferTo);
+    }
+
+    /**
+     * The entity tag of a plain log: its range's own tag when it is held in one, else
+     * a digest of every segment's file and range, which changes whenever one does.
+     */
+    private static String etag(DayLog log) {
+        Optional<LogRange> range = log.range();
+        if (range.isPresent()) {
+            return range.get().etag();
+        }
+        StringBuilder segments = new StringBuilder();
+        for (LogSegment segment : log.segments()) {
+            LogRange part = (LogRange) segment;
+            segments.append(part.file().getFileName()).append(':').append(part.start())
+                    .append('-').append(part.end()).append(';');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(
+                segments.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * The one range asked for, or {@code null} to send everything: when there is no
+     * {@code Range}, it is malformed or has several ranges, or {@code If-Range} names
+     * another version.
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (header == null || ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hands {@code body} to Tomcat's sendfile if the connector supports it. Tomcat only
+     * sends the file for a response completed by the request's own dispatch, so an
+     * asynchronous request writes the bytes itself.
+     */
+    private static boolean sendfile(HttpServletRequest request, LogRange body) {
+        if (body.length() < MIN_SENDFILE_LENGTH || request.isAsyncStarted()
+                || request.getDispatcherType() == DispatcherType.ASYNC
+                || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            return false;
+        }
+        String filename;
+        try {
+            filename = body.file().toFile().getCanonicalPath();
+        } catch (IOException e) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME, filename);
+        request.setAttribute(SENDFILE_START, body.start());
+        request.setAttribute(SENDFILE_END, body.end());
+        return true;
+    }
+}
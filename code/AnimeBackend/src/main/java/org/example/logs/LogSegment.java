@@ -0,0 +1,17 @@
+package org.example.logs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/** Part of a day's log entries, held in one file. */
+public sealed interface LogSegment permits LogRange, CompressedLogSegment {
+
+    Path file();
+
+    /** Number of bytes {@link #transferTo} writes, or {@code -1} if not known upfront. */
+    long length();
+
+    /** Writes the entries to {@code out}, decompressed. Leaves {@code out} open. */
+    void transferTo(OutputStream out) throws IOException;
+}
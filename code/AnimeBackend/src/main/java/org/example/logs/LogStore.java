@@ -0,0 +1,97 @@
+package org.example.logs;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.DoubleConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The logs written by logback's size-and-time rolling: an active
+ * {@code <name>.log} and closed segments {@code <name>-<day>.<n>.log}, or
+ * {@code .log.gz} if configured to gzip them. A day resolves to the segments named
+ * after it, in order of {@code n}, and to its ranges of the active file found by a
+ * {@link LogIndex}, which also covers a day not rolled yet and a log written before
+ * rolling was set up. Other days' files are never opened, so a lookup costs as much
+ * as one day's data whatever the history kept.
+ */
+public class LogStore {
+    private final Path directory;
+    private final String name;
+    private final Pattern segmentName;
+    private final LogIndex activeIndex;
+
+    public LogStore(Path directory, String name) {
+        this.directory = directory;
+        this.name = name;
+        this.segmentName = Pattern.compile(
+                Pattern.quote(name) + "-\\d{4}-\\d{2}-\\d{2}\\.(\\d{1,9})\\.log(\\.gz)?");
+        this.activeIndex = new LogIndex(directory.resolve(name + ".log"));
+    }
+
+    /**
+     * The entries of {@code day}, or empty if there are none. Fails with
+     * {@link NoSuchFileException} if there is no log at all.
+     */
+    public Optional<DayLog> find(LocalDate day) throws IOException {
+        return find(day, done -> { });
+    }
+
+    /**
+     * As {@link #find(LocalDate)}, telling {@code progress} the share of the lookup
+     * done, from 0 to 1; nearly all of it is indexing what was appended to the active
+     * file since the last lookup.
+     */
+    public Optional<DayLog> find(LocalDate day, DoubleConsumer progress) throws IOException {
+        List<LogSegment> segments = new ArrayList<>(closedSegments(day));
+        progress.accept(0.05);
+        try {
+            segments.addAll(activeIndex.find(day, done -> progress.accept(0.05 + 0.95 * done)));
+        } catch (NoSuchFileException e) {
+            if (segments.isEmpty()) {
+                throw e;
+            }
+        }
+        progress.accept(1);
+        return segments.isEmpty() ? Optional.empty() : Optional.of(new DayLog(day, segments));
+    }
+
+    /** Indexes what was appended to the active file, if there is one, ahead of a lookup. */
+    public void refresh() throws IOException {
+        try {
+            activeIndex.refresh();
+        } catch (NoSuchFileException e) {
+            // Nothing logged yet
+        }
+    }
+
+    private List<LogSegment> closedSegments(LocalDate day) throws IOException {
+        List<Numbered> found = new ArrayList<>();
+        String glob = name + "-" + day + ".*";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : files) {
+                Matcher matcher = segmentName.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                LogSegment segment = matcher.group(2) != null
+                        ? new CompressedLogSegment(file)
+                        : new LogRange(file, 0, Files.size(file));
+                found.add(new Numbered(Integer.parseInt(matcher.group(1)), segment));
+            }
+        }
+        found.sort(Comparator.comparingInt(Numbered::number));
+        return found.stream().map(Numbered::segment).toList();
+    }
+
+    private record Numbered(int number, LogSegment segment) {
+    }
+}
@@ -9,6 +9,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.util.List;
 import lombok.Data;
@@ -19,7 +20,8 @@ import lombok.Data;
 public class Nation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "nation_seq")
+    @SequenceGenerator(name = "nation_seq", sequenceName = "nation_seq", allocationSize = 50)
     @Hidden
     private Long id;
 
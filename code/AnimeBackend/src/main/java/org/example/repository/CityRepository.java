@@ -1,18 +1,80 @@
 package org.example.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import org.example.dto.CityFigures;
+import org.example.dto.CitySearchEntry;
+import org.example.dto.NameEntry;
 import org.example.model.City;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CityRepository extends JpaRepository<City, Long> {
+    /** Cities without a country or whose country still exists, with the country fetched. */
+    @Query("SELECT c FROM City c LEFT JOIN FETCH c.country country"
+            + " WHERE c.country IS NULL OR country.id IS NOT NULL")
+    List<City> findAllWithCountry();
+
     @Query("SELECT c FROM City c LEFT JOIN FETCH c.country WHERE c.country.id = :countryId")
     List<City> findByCountryId(@Param("countryId") Long countryId);
 
+    @Query("SELECT new org.example.dto.CitySearchEntry(c.id, c.name, country.id)"
+            + " FROM City c JOIN c.country country WHERE c.name IS NOT NULL")
+    List<CitySearchEntry> findAllSearchEntries();
+
+    @Query("SELECT new org.example.dto.CitySearchEntry(c.id, c.name, country.id)"
+            + " FROM City c JOIN c.country country WHERE c.name IS NOT NULL AND c.id IN :ids")
+    List<CitySearchEntry> findSearchEntriesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT LOWER(c.name) FROM City c"
+            + " WHERE c.country.id = :countryId AND LOWER(c.name) IN :names")
+    Set<String> findExistingLowerCaseNames(@Param("countryId") Long countryId,
+                                           @Param("names") Collection<String> names);
+
     @Query("SELECT c FROM City c LEFT JOIN FETCH c.country WHERE c.id = :id")
     Optional<City> findByIdWithCountry(@Param("id") Long id);
+
+    @Query("SELECT c FROM City c LEFT JOIN FETCH c.country WHERE c.id > :after ORDER BY c.id")
+    List<City> findPageAfter(@Param("after") long after, Pageable limit);
+
+    @Query("SELECT c.id FROM City c WHERE c.country.id = :countryId")
+    List<Long> findIdsByCountryId(@Param("countryId") Long countryId);
+
+    @Query("SELECT c.id FROM City c WHERE c.country IS NOT NULL")
+    List<Long> findIdsWithCountry();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE City c SET c.country = NULL WHERE c.country.id = :countryId")
+    int detachAllFromCountry(@Param("countryId") Long countryId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM City c WHERE c.country.id = :countryId")
+    int deleteAllByCountryId(@Param("countryId") Long countryId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM City c WHERE c.country IS NOT NULL")
+    int deleteAllWithCountry();
+
+    @Query("SELECT new org.example.dto.NameEntry(c.id, c.name) FROM City c"
+            + " WHERE c.name IS NOT NULL")
+    List<NameEntry> findAllNameEntries();
+
+    @Query("SELECT new org.example.dto.NameEntry(c.id, c.name) FROM City c"
+            + " WHERE c.name IS NOT NULL AND c.id IN :ids")
+    List<NameEntry> findNameEntriesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new org.example.dto.CityFigures(c.id, country.id, c.population,"
+            + " c.areaSquareKm) FROM City c LEFT JOIN c.country country")
+    List<CityFigures> findAllFigures();
+
+    @Query("SELECT new org.example.dto.CityFigures(c.id, country.id, c.population,"
+            + " c.areaSquareKm) FROM City c LEFT JOIN c.country country WHERE c.id IN :ids")
+    List<CityFigures> findFiguresByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,12 +1,19 @@
 package org.example.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import org.example.dto.CountryNationLink;
+import org.example.dto.NameEntry;
 import org.example.model.Country;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 
 @Repository
@@ -15,22 +22,43 @@ public interface CountryRepository extends JpaRepository<Country, Long> {
     @Query(value = "SELECT * FROM Country WHERE name = ?1", nativeQuery = true)
     Optional<Country> findCountryByName(String name);
 
+    @Query("SELECT c.name FROM Country c WHERE c.name IN :names")
+    Set<String> findExistingNames(@Param("names") Collection<String> names);
+
     @Query("SELECT DISTINCT c FROM Country c LEFT JOIN FETCH c.cities city"
             + " WHERE :cityId IN (SELECT ct.id "
             + "FROM Country c2 JOIN c2.cities ct WHERE c2 = c)")
     Optional<Country> findCountryWithCitiesByCityId(
             @Param("cityId") Long cityId);
 
-    @Query("SELECT DISTINCT c FROM Country c "
-            + "LEFT JOIN FETCH c.nations LEFT JOIN FETCH c.cities")
-    List<Country> findAllWithCitiesAndNations();
+    /**
+     * Loads every country with its cities and nations. Each collection is fetched by
+     * its own query into the same persistence context, so the database returns one
+     * row per city plus one per nation link instead of their product per country.
+     */
+    @Transactional(readOnly = true)
+    default List<Country> findAllWithCitiesAndNations() {
+        List<Country> countries = findAllWithCities();
+        findAllWithNations();
+        return countries;
+    }
+
+    @Query("SELECT c FROM Country c WHERE c.id > :after ORDER BY c.id")
+    List<Country> findPageAfter(@Param("after") long after, Pageable limit);
 
     @Query("SELECT DISTINCT c FROM Country c LEFT JOIN FETCH c.cities")
     List<Country> findAllWithCities();
 
-    @Query("SELECT DISTINCT c FROM Country c LEFT JOIN FETCH "
-            + "c.nations LEFT JOIN FETCH c.cities WHERE c.id = :id")
-    Optional<Country> findCountryWithCitiesAndNationsById(@Param("id") Long id);
+    @Query("SELECT DISTINCT c FROM Country c LEFT JOIN FETCH c.nations")
+    List<Country> findAllWithNations();
+
+    /** Like {@link #findAllWithCitiesAndNations()}, for a single country. */
+    @Transactional(readOnly = true)
+    default Optional<Country> findCountryWithCitiesAndNationsById(Long id) {
+        Optional<Country> country = findCountryWithCitiesById(id);
+        country.ifPresent(c -> findCountryWithNationsById(id));
+        return country;
+    }
 
     @Query("SELECT DISTINCT c FROM Country c "
             + "LEFT JOIN FETCH c.nations WHERE c.id = :id")
@@ -45,7 +73,39 @@ public interface CountryRepository extends JpaRepository<Country, Long> {
     List<Country> findCountriesWithNationsByNationByNationId(
             @Param("nationId") Long nationId);
 
-    @Query("SELECT DISTINCT c FROM Country c JOIN c.cities city WHERE LOWER(city.name)"
-            + " LIKE LOWER(CONCAT('%', :cityName, '%'))")
-    List<Country> findCountriesByCityName(@Param("cityName") String cityName);
+    @Query("SELECT DISTINCT c FROM Country c LEFT JOIN FETCH c.cities WHERE c.id IN :ids")
+    List<Country> findAllWithCitiesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.id FROM Country c")
+    List<Long> findAllIds();
+
+    @Query("SELECT n.id FROM Country c JOIN c.nations n WHERE c.id = :id")
+    List<Long> findNationIdsById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT n.id FROM Country c JOIN c.nations n")
+    List<Long> findAllLinkedNationIds();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM country_nations WHERE country_id = :id", nativeQuery = true)
+    int unlinkNations(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM country_nations", nativeQuery = true)
+    int unlinkAllNations();
+
+    @Query("SELECT new org.example.dto.NameEntry(c.id, c.name) FROM Country c"
+            + " WHERE c.name IS NOT NULL")
+    List<NameEntry> findAllNameEntries();
+
+    @Query("SELECT new org.example.dto.CountryNationLink(c.id, n.id)"
+            + " FROM Country c JOIN c.nations n")
+    List<CountryNationLink> findAllNationLinks();
+
+    @Query("SELECT new org.example.dto.CountryNationLink(c.id, n.id)"
+            + " FROM Country c JOIN c.nations n WHERE c.id IN :ids")
+    List<CountryNationLink> findNationLinksByCountryIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new org.example.dto.NameEntry(c.id, c.name) FROM Country c"
+            + " WHERE c.name IS NOT NULL AND c.id IN :ids")
+    List<NameEntry> findNameEntriesByIdIn(@Param("ids") Collection<Long> ids);
 }
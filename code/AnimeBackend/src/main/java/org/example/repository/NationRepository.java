@@ -1,23 +1,67 @@
 package org.example.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.example.dto.NameEntry;
+import org.example.model.Country;
 import org.example.model.Nation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface NationRepository extends JpaRepository<Nation, Long> {
 
     Nation findNationByName(String name);
 
-    @Query("SELECT n FROM Nation n LEFT JOIN FETCH n.countries c "
-            + "LEFT JOIN FETCH c.cities "
+    List<Nation> findByNameIn(Collection<String> names);
+
+    /**
+     * Loads a nation with its countries and their cities and nations, one query per
+     * collection, so the rows don't multiply across the joins.
+     */
+    @Transactional(readOnly = true)
+    default Optional<Nation> findByIdWithCountriesWithCities(Long id) {
+        Optional<Nation> nation = findByIdWithCountries(id);
+        nation.filter(n -> !n.getCountries().isEmpty()).ifPresent(n -> {
+            findCountriesWithCitiesByNationId(id);
+            findCountriesWithNationsByNationId(id);
+        });
+        return nation;
+    }
+
+    @Query("SELECT DISTINCT c FROM Nation n JOIN n.countries c "
+            + "LEFT JOIN FETCH c.cities WHERE n.id = :id")
+    List<Country> findCountriesWithCitiesByNationId(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT c FROM Nation n JOIN n.countries c "
             + "LEFT JOIN FETCH c.nations WHERE n.id = :id")
-    Optional<Nation> findByIdWithCountriesWithCities(@Param("id") Long id);
+    List<Country> findCountriesWithNationsByNationId(@Param("id") Long id);
 
     @Query("SELECT n FROM Nation n "
             + "LEFT JOIN FETCH n.countries WHERE n.id = :id")
     Optional<Nation> findByIdWithCountries(@Param("id") Long id);
+
+    @Query("SELECT n FROM Nation n WHERE n.id > :after ORDER BY n.id")
+    List<Nation> findPageAfter(@Param("after") long after, Pageable limit);
+
+    @Query("SELECT c.id FROM Nation n JOIN n.countries c WHERE n.id = :id")
+    List<Long> findCountryIdsById(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM country_nations WHERE nation_id = :id", nativeQuery = true)
+    int unlinkCountries(@Param("id") Long id);
+
+    @Query("SELECT new org.example.dto.NameEntry(n.id, n.name) FROM Nation n"
+            + " WHERE n.name IS NOT NULL")
+    List<NameEntry> findAllNameEntries();
+
+    @Query("SELECT new org.example.dto.NameEntry(n.id, n.name) FROM Nation n"
+            + " WHERE n.name IS NOT NULL AND n.id IN :ids")
+    List<NameEntry> findNameEntriesByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,320 @@
+package org.example.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over city names for case-insensitive substring search.
+ * Every name is lower-cased and split into overlapping three-character grams, each
+ * with a posting list of the slots holding it; a query is only checked against the
+ * names in the shortest posting list of its own grams instead of every name. Queries
+ * shorter than a gram fall back to a scan.
+ *
+ * <p>Cities are ranked exact name first, then prefix, then any other substring, and
+ * shorter names first within a tier. Results are countries, each ranked by its best
+ * matching city. Replacing or removing a city leaves a tombstone in its old slot;
+ * slots and postings are compacted once tombstones outnumber live names. Searches
+ * share a read lock, updates take the write lock.
+ */
+public class CityNameIndex {
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int SUBSTRING = 2;
+
+    private static final int GRAM = 3;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] cityIds;
+    private long[] countryIds;
+    private String[] names;
+    private int size;
+    private int tombstones;
+    private LongIntMap slots;
+    private Map<Long, Postings> postings;
+
+    public CityNameIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    public CityNameIndex(int expectedSize) {
+        allocate(Math.max(expectedSize, MIN_CAPACITY));
+    }
+
+    /** Adds a city, or replaces it if it is already indexed. */
+    public void put(long cityId, String name, long countryId) {
+        lock.writeLock().lock();
+        try {
+            bury(cityId);
+            append(cityId, name.toLowerCase(Locale.ROOT), countryId);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long cityId) {
+        lock.writeLock().lock();
+        try {
+            bury(cityId);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Number of cities indexed. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the countries having a city whose name contains {@code query}, ignoring
+     * case, best match first and at most {@code limit} of them.
+     */
+    public List<Long> searchCountries(String query, int limit) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        Matches matches = new Matches();
+        lock.readLock().lock();
+        try {
+            if (needle.length() < GRAM) {
+                for (int slot = 0; slot < size; slot++) {
+                    consider(matches, slot, needle);
+                }
+            } else {
+                Postings candidates = shortestPostings(needle);
+                for (int i = 0; candidates != null && i < candidates.size; i++) {
+                    consider(matches, candidates.slots[i], needle);
+                }
+            }
+            return matches.top(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void consider(Matches matches, int slot, String needle) {
+        String name = names[slot];
+        if (name == null || !name.contains(needle)) {
+            return;
+        }
+        int rank = name.equals(needle) ? EXACT : name.startsWith(needle) ? PREFIX : SUBSTRING;
+        matches.offer(countryIds[slot], slot, ((long) rank << 32) | name.length());
+    }
+
+    /** Orders two slots of equal rank and length by name, then by city id. */
+    private int compareNames(int slotA, int slotB) {
+        int byName = names[slotA].compareTo(names[slotB]);
+        return byName != 0 ? byName : Long.compare(cityIds[slotA], cityIds[slotB]);
+    }
+
+    private Postings shortestPostings(String needle) {
+        Postings shortest = null;
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            Postings candidate = postings.get(gram(needle, i));
+            if (candidate == null) {
+                return null;
+            }
+            if (shortest == null || candidate.size < shortest.size) {
+                shortest = candidate;
+            }
+        }
+        return shortest;
+    }
+
+    private void bury(long cityId) {
+        int slot = slots.get(cityId);
+        if (slot >= 0 && names[slot] != null) {
+            names[slot] = null;
+            tombstones++;
+        }
+    }
+
+    private void append(long cityId, String name, long countryId) {
+        if (size == names.length) {
+            int capacity = names.length * 2;
+            cityIds = Arrays.copyOf(cityIds, capacity);
+            countryIds = Arrays.copyOf(countryIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        int slot = size++;
+        cityIds[slot] = cityId;
+        countryIds[slot] = countryId;
+        names[slot] = name;
+        slots.put(cityId, slot);
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            postings.computeIfAbsent(gram(name, i), g -> new Postings()).add(slot);
+        }
+    }
+
+    private void compactIfSparse() {
+        if (tombstones < MIN_TOMBSTONES_TO_COMPACT || tombstones < size - tombstones) {
+            return;
+        }
+        long[] oldCityIds = cityIds;
+        long[] oldCountryIds = countryIds;
+        String[] oldNames = names;
+        int oldSize = size;
+        allocate(Math.max(oldSize - tombstones, MIN_CAPACITY));
+        for (int slot = 0; slot < oldSize; slot++) {
+            if (oldNames[slot] != null) {
+                append(oldCityIds[slot], oldNames[slot], oldCountryIds[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        cityIds = new long[capacity];
+        countryIds = new long[capacity];
+        names = new String[capacity];
+        size = 0;
+        tombstones = 0;
+        slots = new LongIntMap(capacity);
+        postings = new HashMap<>();
+    }
+
+    private static long gram(String name, int from) {
+        return ((long) name.charAt(from) << 32) | ((long) name.charAt(from + 1) << 16)
+                | name.charAt(from + 2);
+    }
+
+    /**
+     * Best matching city per country during one search, keyed by rank and then name
+     * length packed into a long, so most comparisons never touch the names.
+     */
+    private final class Matches {
+        private final LongIntMap positions = new LongIntMap(MIN_CAPACITY);
+        private long[] countries = new long[MIN_CAPACITY];
+        private int[] slots = new int[MIN_CAPACITY];
+        private long[] keys = new long[MIN_CAPACITY];
+        private int size;
+
+        void offer(long countryId, int slot, long key) {
+            int position = positions.get(countryId);
+            if (position < 0) {
+                if (size == countries.length) {
+                    countries = Arrays.copyOf(countries, size * 2);
+                    slots = Arrays.copyOf(slots, size * 2);
+                    keys = Arrays.copyOf(keys, size * 2);
+                }
+                countries[size] = countryId;
+                slots[size] = slot;
+                keys[size] = key;
+                positions.put(countryId, size++);
+            } else if (compare(slot, key, slots[position], keys[position]) < 0) {
+                slots[position] = slot;
+                keys[position] = key;
+            }
+        }
+
+        List<Long> top(int limit) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> compare(slots[a], keys[a], slots[b], keys[b]));
+            List<Long> top = new ArrayList<>(Math.min(limit, size));
+            for (int i = 0; i < size && i < limit; i++) {
+                top.add(countries[order[i]]);
+            }
+            return top;
+        }
+
+        private int compare(int slotA, long keyA, int slotB, long keyB) {
+            return keyA != keyB ? Long.compare(keyA, keyB) : compareNames(slotA, slotB);
+        }
+    }
+
+    /** Slots holding one gram, in ascending order since slots are only appended. */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    /** Open-addressing map from city id to slot, without boxing a million keys. */
+    private static final class LongIntMap {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private int[] values;
+        private int mask;
+        private int size;
+
+        LongIntMap(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            mask = capacity - 1;
+        }
+
+        int get(long key) {
+            for (int i = indexOf(key); ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+                if (keys[i] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        void put(long key, int value) {
+            for (int i = indexOf(key); ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                if (keys[i] == EMPTY) {
+                    keys[i] = key;
+                    values[i] = value;
+                    if (++size * 2 > keys.length) {
+                        grow();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private int indexOf(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            mask = keys.length - 1;
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable autocomplete index over names: sorted arrays of lower-cased keys, one per
+ * word of every name, so {@code "mins"} finds both "Minsk" and "Old Minsk". A lookup
+ * binary-searches the first key with the prefix and walks forward, so it costs a
+ * logarithmic search plus the matches returned. {@link #update} never changes an
+ * index; it copies the unchanged keys into a new one, binary-searching where each
+ * changed key goes rather than comparing every key, so readers can keep using the
+ * old one without locking.
+ */
+public final class PrefixIndex {
+    public static final PrefixIndex EMPTY = new PrefixIndex(new String[0], new long[0],
+            new String[0]);
+
+    private final String[] keys;
+    private final long[] ids;
+    private final String[] names;
+
+    private PrefixIndex(String[] keys, long[] ids, String[] names) {
+        this.keys = keys;
+        this.ids = ids;
+        this.names = names;
+    }
+
+    /** An index over {@code names}, keyed by entity id. */
+    public static PrefixIndex of(Map<Long, String> names) {
+        return EMPTY.update(names, List.of());
+    }
+
+    /**
+     * A copy of this index with the {@code changed} names added or replaced and the
+     * {@code removed} ids dropped.
+     */
+    public PrefixIndex update(Map<Long, String> changed, Collection<Long> removed) {
+        long[] touched = new long[changed.size() + removed.size()];
+        int count = 0;
+        for (long id : changed.keySet()) {
+            touched[count++] = id;
+        }
+        for (long id : removed) {
+            touched[count++] = id;
+        }
+        Arrays.sort(touched);
+        Builder fresh = new Builder(changed.size());
+        changed.forEach((id, name) -> fresh.addName(id, name));
+        fresh.sort();
+
+        Builder merged = new Builder(keys.length + fresh.size);
+        int copied = 0;
+        for (int j = 0; j < fresh.size; j++) {
+            int insertAt = lowerBound(fresh.keys[j], fresh.ids[j], copied);
+            merged.copy(this, copied, insertAt, touched);
+            merged.add(fresh.keys[j], fresh.ids[j], fresh.names[j]);
+            copied = insertAt;
+        }
+        merged.copy(this, copied, keys.length, touched);
+        return merged.build();
+    }
+
+    /**
+     * Up to {@code limit} names with a word starting with {@code prefix}, ignoring
+     * case, in order of the matching word.
+     */
+    public List<Match> top(String prefix, int limit) {
+        String needle = prefix.toLowerCase(Locale.ROOT);
+        List<Match> matches = new ArrayList<>(Math.min(limit, 16));
+        Set<Long> seen = new HashSet<>();
+        int first = lowerBound(needle, Long.MIN_VALUE, 0);
+        for (int i = first; i < keys.length && matches.size() < limit
+                && keys[i].startsWith(needle); i++) {
+            if (seen.add(ids[i])) {
+                matches.add(new Match(ids[i], names[i], keys[i]));
+            }
+        }
+        return matches;
+    }
+
+    /** Number of keys, at least one per indexed name. */
+    public int size() {
+        return keys.length;
+    }
+
+    /** First position from {@code low} on not ordered before {@code key}, {@code id}. */
+    private int lowerBound(String key, long id, int low) {
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(keys[middle], ids[middle], key, id) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(String keyA, long idA, String keyB, long idB) {
+        int byKey = keyA.compareTo(keyB);
+        return byKey != 0 ? byKey : Long.compare(idA, idB);
+    }
+
+    /** A name found by a prefix, with the key it was found by. */
+    public record Match(long id, String name, String key) {
+    }
+
+    private static final class Builder {
+        private String[] keys;
+        private long[] ids;
+        private String[] names;
+        private int size;
+
+        Builder(int capacity) {
+            keys = new String[Math.max(capacity, 4)];
+            ids = new long[keys.length];
+            names = new String[keys.length];
+        }
+
+        void addName(long id, String name) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            for (int i = 0; i < lower.length(); i++) {
+                boolean wordStart = !Character.isWhitespace(lower.charAt(i))
+                        && (i == 0 || !Character.isLetterOrDigit(lower.charAt(i - 1)));
+                if (wordStart) {
+                    add(i == 0 ? lower : lower.substring(i), id, name);
+                }
+            }
+        }
+
+        void add(String key, long id, String name) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+                names = Arrays.copyOf(names, size * 2);
+            }
+            keys[size] = key;
+            ids[size] = id;
+            names[size] = name;
+            size++;
+        }
+
+        /** Appends the entries of {@code index} in {@code [from, to)} not in {@code skipped}. */
+        void copy(PrefixIndex index, int from, int to, long[] skipped) {
+            for (int i = from; i < to; i++) {
+                if (Arrays.binarySearch(skipped, index.ids[i]) < 0) {
+                    add(index.keys[i], index.ids[i], index.names[i]);
+                }
+            }
+        }
+
+        void sort() {
+            Entry[] entries = new Entry[size];
+            for (int i = 0; i < size; i++) {
+                entries[i] = new Entry(keys[i], ids[i], names[i]);
+            }
+            Arrays.sort(entries, (a, b) -> compare(a.key(), a.id(), b.key(), b.id()));
+            for (int i = 0; i < size; i++) {
+                keys[i] = entries[i].key();
+                ids[i] = entries[i].id();
+                names[i] = entries[i].name();
+            }
+        }
+
+        PrefixIndex build() {
+            return new PrefixIndex(Arrays.copyOf(keys, size), Arrays.copyOf(ids, size),
+                    Arrays.copyOf(names, size));
+        }
+
+        private record Entry(String key, long id, String name) {
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package org.example.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.example.cache.CacheDependencyGraph;
+import org.example.cache.Dependency;
+import org.example.dto.NameEntry;
+import org.example.dto.Suggestion;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.example.search.PrefixIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Autocompletes country, city and nation names from one {@link PrefixIndex} per
+ * entity type, so a suggestion never touches the database. The indexes are built on
+ * startup and kept current from the committed changes the {@link CacheDependencyGraph}
+ * reports, on this node or any other: changed ids are queued and re-read on the
+ * {@code indexUpdateExecutor}, which swaps in an updated copy of the index. Readers
+ * always see a complete index, at most one batch of changes behind. A batch that
+ * fails to load is retried a few seconds later.
+ */
+@Service
+public class AutocompleteService implements CacheDependencyGraph.ChangeListener {
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+    private static final int MAX_QUERY_LENGTH = 100;
+    private static final int RELOAD_BATCH = 1000;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteService.class);
+
+    private final Map<Dependency.EntityType, Source> sources =
+            new EnumMap<>(Dependency.EntityType.class);
+    private final Executor indexUpdateExecutor;
+    private final TaskScheduler scheduler;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile boolean stale = true;
+
+    public AutocompleteService(CountryRepository countryRepository,
+                               CityRepository cityRepository,
+                               NationRepository nationRepository,
+                               CacheDependencyGraph dependencyGraph,
+                               @Qualifier("indexUpdateExecutor") Executor indexUpdateExecutor,
+                               @Qualifier("cacheMaintenanceScheduler") TaskScheduler scheduler) {
+        sources.put(Dependency.EntityType.COUNTRY, new Source(
+                countryRepository::findAllNameEntries, countryRepository::findNameEntriesByIdIn));
+        sources.put(Dependency.EntityType.CITY, new Source(
+                cityRepository::findAllNameEntries, cityRepository::findNameEntriesByIdIn));
+        sources.put(Dependency.EntityType.NATION, new Source(
+                nationRepository::findAllNameEntries, nationRepository::findNameEntriesByIdIn));
+        this.indexUpdateExecutor = indexUpdateExecutor;
+        this.scheduler = scheduler;
+        dependencyGraph.addListener(this);
+    }
+
+    /**
+     * Up to {@code limit} names of the given {@code type}, or of any type if it is
+     * {@code null}, with a word starting with {@code query}, ignoring case.
+     */
+    public List<Suggestion> suggest(String query, String type, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query cannot be empty");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query cannot be longer than "
+                    + MAX_QUERY_LENGTH + " characters");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        Collection<Dependency.EntityType> types = type == null || type.isBlank()
+                ? sources.keySet()
+                : List.of(parseType(type));
+        if (stale) {
+            schedule();
+        }
+        String prefix = query.trim();
+        List<Match> matches = new ArrayList<>();
+        for (Dependency.EntityType entityType : types) {
+            sources.get(entityType).index.top(prefix, limit)
+                    .forEach(match -> matches.add(new Match(entityType, match)));
+        }
+        return matches.stream()
+                .sorted(Comparator.comparing((Match match) -> match.match().key())
+                        .thenComparing(Match::type))
+                .limit(limit)
+                .map(match -> new Suggestion(match.type(), match.match().id(),
+                        match.match().name()))
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        schedule();
+    }
+
+    @Override
+    public void changed(Set<Dependency> dependencies) {
+        boolean queued = false;
+        for (Dependency dependency : dependencies) {
+            if (dependency.isEntity()) {
+                queued |= sources.get(dependency.type()).changed.add(dependency.id());
+            }
+        }
+        if (queued) {
+            schedule();
+        }
+    }
+
+    @Override
+    public void reset() {
+        stale = true;
+        schedule();
+    }
+
+    private void schedule() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            indexUpdateExecutor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        boolean failed = false;
+        try {
+            if (stale) {
+                stale = false;
+                rebuild();
+            } else {
+                sources.values().forEach(this::applyChanges);
+            }
+        } catch (RuntimeException e) {
+            failed = true;
+            logger.warn("Autocomplete index not updated: {}", e.getMessage());
+        } finally {
+            drainScheduled.set(false);
+        }
+        if (failed) {
+            scheduler.schedule(this::schedule, Instant.now().plus(RETRY_DELAY));
+        } else if (sources.values().stream().anyMatch(source -> !source.changed.isEmpty())) {
+            schedule();
+        }
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        try {
+            for (Source source : sources.values()) {
+                source.changed.clear();
+                Map<Long, String> names = new HashMap<>();
+                source.all.get().forEach(entry -> names.put(entry.id(), entry.name()));
+                source.index = PrefixIndex.of(names);
+            }
+        } catch (RuntimeException e) {
+            stale = true;
+            throw e;
+        }
+        logger.info("🔤 Autocomplete index built in {} ms",
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void applyChanges(Source source) {
+        if (source.changed.isEmpty()) {
+            return;
+        }
+        List<Long> batch = new ArrayList<>(RELOAD_BATCH);
+        for (Long id : source.changed) {
+            batch.add(id);
+            if (batch.size() == RELOAD_BATCH) {
+                break;
+            }
+        }
+        source.changed.removeAll(batch);
+        try {
+            Map<Long, String> names = new HashMap<>();
+            source.byIds.apply(batch).forEach(entry -> names.put(entry.id(), entry.name()));
+            Set<Long> removed = new HashSet<>(batch);
+            removed.removeAll(names.keySet());
+            source.index = source.index.update(names, removed);
+        } catch (RuntimeException e) {
+            source.changed.addAll(batch);
+            throw e;
+        }
+    }
+
+    private static Dependency.EntityType parseType(String type) {
+        try {
+            return Dependency.EntityType.valueOf(type.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Type must be country, city or nation");
+        }
+    }
+
+    private record Match(Dependency.EntityType type, PrefixIndex.Match match) {
+    }
+
+    /** One entity type: how to read its names, its queued changes and its index. */
+    private static final class Source {
+        private final Supplier<List<NameEntry>> all;
+        private final Function<Collection<Long>, List<NameEntry>> byIds;
+        private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+        private volatile PrefixIndex index = PrefixIndex.EMPTY;
+
+        Source(Supplier<List<NameEntry>> all,
+               Function<Collection<Long>, List<NameEntry>> byIds) {
+            this.all = all;
+            this.byIds = byIds;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.service;
+
+import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.example.cache.CacheDependencyGraph;
+import org.example.cache.Dependency;
+import org.example.cache.SearchCache;
+import org.example.dto.CitySearchEntry;
+import org.example.dto.CountryDto;
+import org.example.model.City;
+import org.example.model.Country;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.search.CityNameIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Finds countries by the names of their cities through a {@link CityNameIndex}
+ * instead of a {@code LIKE '%x%'} scan of the city table. The index is built on
+ * startup, or on the first search if that failed, and kept current from the
+ * committed changes the {@link CacheDependencyGraph} reports, on this node or any
+ * other: changed city ids are queued and re-read in one query by the next search.
+ * Results of popular queries are cached until a city or one of the countries in
+ * them changes.
+ */
+@Service
+public class CitySearchService implements CacheDependencyGraph.ChangeListener {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+    private static final int MAX_QUERY_LENGTH = 100;
+    private static final int RELOAD_BATCH = 1000;
+    private static final Duration RESULT_TTL = Duration.ofMinutes(5);
+    private static final Logger logger = LoggerFactory.getLogger(CitySearchService.class);
+
+    private final CityRepository cityRepository;
+    private final CountryRepository countryRepository;
+    private final SearchCache searchCache;
+    private final Set<Long> changedCities = ConcurrentHashMap.newKeySet();
+    private final Object indexLock = new Object();
+    private volatile CityNameIndex index;
+    private volatile boolean stale = true;
+
+    public CitySearchService(CityRepository cityRepository, CountryRepository countryRepository,
+                             SearchCache searchCache, CacheDependencyGraph dependencyGraph) {
+        this.cityRepository = cityRepository;
+        this.countryRepository = countryRepository;
+        this.searchCache = searchCache;
+        dependencyGraph.addListener(this);
+    }
+
+    /**
+     * Countries with a city whose name contains {@code cityName}, ignoring case: exact
+     * names first, then prefixes, then other substrings, at most {@code limit}.
+     */
+    @Transactional
+    public List<CountryDto> searchCountriesByCityName(String cityName, int limit) {
+        if (cityName == null || cityName.isBlank()) {
+            throw new IllegalArgumentException("City name cannot be empty");
+        }
+        if (cityName.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("City name cannot be longer than "
+                    + MAX_QUERY_LENGTH + " characters");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        String query = cityName.trim().toLowerCase(Locale.ROOT);
+        return searchCache.get("search_" + limit + "_" + query, RESULT_TTL,
+                () -> search(query, limit), CitySearchService::dependenciesOf);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            currentIndex();
+        } catch (RuntimeException e) {
+            logger.warn("City search index not built on startup: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void changed(Set<Dependency> dependencies) {
+        for (Dependency dependency : dependencies) {
+            if (dependency.type() == Dependency.EntityType.CITY && dependency.isEntity()) {
+                changedCities.add(dependency.id());
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        stale = true;
+    }
+
+    private List<CountryDto> search(String query, int limit) {
+        List<Long> countryIds = currentIndex().searchCountries(query, limit);
+        if (countryIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Country> countries = countryRepository.findAllWithCitiesByIdIn(countryIds)
+                .stream()
+                .collect(Collectors.toMap(Country::getId, Function.identity()));
+        return countryIds.stream()
+                .map(countries::get)
+                .filter(Objects::nonNull)
+                .map(CitySearchService::toDto)
+                .toList();
+    }
+
+    private CityNameIndex currentIndex() {
+        synchronized (indexLock) {
+            if (stale || index == null) {
+                stale = false;
+                changedCities.clear();
+                try {
+                    index = build();
+                } catch (RuntimeException e) {
+                    stale = true;
+                    throw e;
+                }
+            } else {
+                applyChanges(index);
+            }
+            return index;
+        }
+    }
+
+    private CityNameIndex build() {
+        long start = System.nanoTime();
+        List<CitySearchEntry> entries = cityRepository.findAllSearchEntries();
+        CityNameIndex built = new CityNameIndex(entries.size());
+        entries.forEach(entry -> built.put(entry.id(), entry.name(), entry.countryId()));
+        logger.info("🔎 City search index built with {} cities in {} ms", built.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return built;
+    }
+
+    private void applyChanges(CityNameIndex target) {
+        if (changedCities.isEmpty()) {
+            return;
+        }
+        List<Long> batch = new ArrayList<>(RELOAD_BATCH);
+        for (Iterator<Long> ids = changedCities.iterator(); ids.hasNext(); ) {
+            batch.add(ids.next());
+            ids.remove();
+            if (batch.size() == RELOAD_BATCH || !ids.hasNext()) {
+                try {
+                    reload(target, batch);
+                } catch (RuntimeException e) {
+                    changedCities.addAll(batch);
+                    throw e;
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void reload(CityNameIndex target, Collection<Long> cityIds) {
+        Set<Long> missing = new HashSet<>(cityIds);
+        for (CitySearchEntry entry : cityRepository.findSearchEntriesByIdIn(cityIds)) {
+            target.put(entry.id(), entry.name(), entry.countryId());
+            missing.remove(entry.id());
+        }
+        missing.forEach(target::remove);
+        logger.debug("City search index updated for {} cities", cityIds.size());
+    }
+
+    private static CountryDto toDto(Country country) {
+        CountryDto dto = CountryDto.fromEntity(country);
+        dto.setCityIds(country.getCities().stream()
+                .map(City::getId)
+                .collect(Collectors.toSet()));
+        return dto;
+    }
+
+    private static Collection<Dependency> dependenciesOf(List<CountryDto> countries) {
+        List<Dependency> dependencies = new ArrayList<>();
+        dependencies.add(Dependency.any(Dependency.EntityType.CITY));
+        countries.forEach(country -> dependencies.add(Dependency.country(country.getId())));
+        return dependencies;
+    }
+}
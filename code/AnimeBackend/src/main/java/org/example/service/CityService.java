@@ -1,24 +1,40 @@
 package org.example.service;
 
 import jakarta.transaction.Transactional;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.AllArgsConstructor;
+import org.example.cache.CacheDependencyGraph;
+import org.example.cache.CacheRegions;
+import org.example.cache.Dependency;
 import org.example.cache.SearchCache;
-import org.example.dto.CityDto;
+import org.example.dto.BulkResult;
+import org.example.dto.CitySnapshot;
+import org.example.dto.CountrySnapshot;
+import org.example.dto.KeysetPage;
 import org.example.exception.ObjectExistedException;
 import org.example.exception.ObjectNotFoundException;
 import org.example.model.City;
 import org.example.model.Country;
 import org.example.repository.CityRepository;
 import org.example.repository.CountryRepository;
+import org.example.snapshot.EntityGraph;
+import org.example.snapshot.EntityGraphStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -28,101 +44,84 @@ public class CityService {
     private final CityRepository cityRepository;
     private final CountryRepository countryRepository;
     private final SearchCache searchCache;
+    private final CacheRegions cacheRegions;
+    private final CacheDependencyGraph dependencyGraph;
+    private final EntityGraphStore entityGraphs;
     private static final Logger logger = LoggerFactory.getLogger(CityService.class);
 
-    private static final String CITIES_BY_COUNTRY_PREFIX = "cities_country_";
-    private static final String CITY_PREFIX = "city_";
-    private static final String COUNTRY_PREFIX = "country_";
-    private static final String ALL_CITIES_BY_COUNTRY_ID = "allCitiesByCountryId_";
     private static final String ALL_CITIES = "allCities";
-    private static final String ALL_COUNTRIES_BY_NATION_ID = "allCountriesByNationId_";
-    private static final String COUNTRY_ID = "countryId_";
-
-    private void updateCache(final Country country, final String operation) {
-        Long countryId = country.getId();
-        searchCache.remove(ALL_CITIES);
-        searchCache.remove(ALL_CITIES_BY_COUNTRY_ID + countryId);
-        searchCache.remove(COUNTRY_ID + countryId);
-        searchCache.remove(CITIES_BY_COUNTRY_PREFIX + countryId);
-        if (country.getNations() != null) {
-            country.getNations().forEach(nation -> searchCache.remove(
-                    ALL_COUNTRIES_BY_NATION_ID + nation.getId()));
-        }
-        logger.info("🔄 Обновлён кэш для страны с ID: {}. Операция: {}", countryId, operation);
-    }
+    private static final Duration ALL_CITIES_TTL = Duration.ofMinutes(1);
+    private static final List<Dependency> ALL_CITIES_DEPENDENCIES = List.of(
+            Dependency.any(Dependency.EntityType.CITY),
+            Dependency.any(Dependency.EntityType.COUNTRY));
 
     private boolean isValidName(String name) {
         return name.matches("^[a-zA-Z0-9\\s\\-,.]{1,100}$");
     }
 
     @Transactional
-    public List<City> getCities() {
-        if (searchCache.containsKey(ALL_CITIES)) {
-            Object cachedValue = searchCache.get(ALL_CITIES);
-            List<City> cities = safeCastToListOfCities(cachedValue);
-            if (!cities.isEmpty()) {
-                logger.info("Getting cities from cache");
-                return cities.stream()
-                        .filter(c -> c.getCountry() == null || countryRepository.existsById(
-                                c.getCountry().getId())).toList();
-            }
-            logger.warn("Invalid or empty cache entry for key: {}", ALL_CITIES);
-            searchCache.remove(ALL_CITIES);
+    public List<CitySnapshot> getCities() {
+        EntityGraph graph = entityGraphs.current();
+        if (graph != null) {
+            return graph.cities();
         }
+        return searchCache.get(ALL_CITIES, ALL_CITIES_TTL, ALL_CITIES_DEPENDENCIES,
+                this::loadCities);
+    }
 
-        List<City> cities = cityRepository.findAll();
-        cities = cities.stream()
-                .filter(c -> c.getCountry() == null || countryRepository.existsById(
-                        c.getCountry().getId())).toList();
+    @Transactional
+    public KeysetPage<CitySnapshot> getCitiesPage(long after, int limit) {
+        EntityGraph graph = entityGraphs.current();
+        if (graph != null) {
+            return KeysetPage.of(graph.citiesAfter(after, KeysetPage.checkLimit(limit)), limit,
+                    CitySnapshot::id);
+        }
+        List<City> cities = cityRepository.findPageAfter(after,
+                PageRequest.ofSize(KeysetPage.checkLimit(limit)));
+        return KeysetPage.of(toSnapshots(cities).toList(), limit, CitySnapshot::id);
+    }
 
-        searchCache.put(ALL_CITIES, cities);
+    private List<CitySnapshot> loadCities() {
+        List<City> cities = cityRepository.findAllWithCountry();
         logger.info("Cities loaded from database and cached");
-        return cities;
+        return toSnapshots(cities).toList();
     }
 
-    @SuppressWarnings("unchecked")
-    private List<City> safeCastToListOfCities(Object obj) {
-        if (obj instanceof List<?> list && (list.isEmpty() || list.get(0) instanceof City)) {
-            return (List<City>) list;
-        }
-        return Collections.emptyList();
+    private static Stream<CitySnapshot> toSnapshots(Collection<City> cities) {
+        Map<Long, CountrySnapshot> countries = new HashMap<>();
+        return cities.stream().map(city -> CitySnapshot.of(city, city.getCountry() == null
+                ? null
+                : countries.computeIfAbsent(city.getCountry().getId(),
+                        id -> CountrySnapshot.summaryOf(city.getCountry()))));
     }
 
     @Transactional
-    public Set<CityDto> getCitiesByCountryId(Long countryId) {
+    public Set<CitySnapshot> getCitiesByCountryId(Long countryId) {
         if (countryId == null) {
             throw new IllegalArgumentException("Country ID cannot be null");
         }
-        String cacheKey = CITIES_BY_COUNTRY_PREFIX + countryId;
-
-        if (searchCache.containsKey(cacheKey)) {
-            Object cached = searchCache.get(cacheKey);
-            if (cached instanceof Set<?> set && (set.isEmpty() || set.iterator().next()
-                    instanceof CityDto)) {
-                logger.info("Getting cities with countryId_{} from cache", countryId);
-                if (logger.isInfoEnabled()) {
-                    logger.info("{}", cached);
-                }
-                return (Set<CityDto>) cached;
-            }
-            if (cached instanceof List<?> list && (list.isEmpty() || list.get(0)
-                    instanceof CityDto)) {
-                logger.info("Converting cached list to set for countryId_{}", countryId);
-                Set<CityDto> converted = new HashSet<>((List<CityDto>) cached);
-                searchCache.put(cacheKey, converted);
-                return converted;
+        EntityGraph graph = entityGraphs.current();
+        if (graph != null) {
+            Set<CitySnapshot> cities = graph.citiesOfCountry(countryId);
+            return cities == null ? Collections.emptySet() : cities;
+        }
+        Set<CitySnapshot> cached = cacheRegions.getCitiesByCountry().get(countryId);
+        if (cached != null) {
+            logger.info("Getting cities with countryId_{} from cache", countryId);
+            if (logger.isInfoEnabled()) {
+                logger.info("{}", cached);
             }
-            logger.warn("Invalid cache entry for key: {}. Removing cache.", cacheKey);
-            searchCache.remove(cacheKey);
+            return cached;
         }
 
+        long ticket = cacheRegions.getCitiesByCountry().ticket();
         if (!countryRepository.existsById(countryId)) {
             return Collections.emptySet();
         }
-        Set<CityDto> result = cityRepository.findByCountryId(countryId).stream()
-                .map(CityDto::fromEntity)
-                .collect(Collectors.toSet());
-        searchCache.put(cacheKey, result);
+        Set<CitySnapshot> result = toSnapshots(cityRepository.findByCountryId(countryId))
+                .collect(Collectors.toUnmodifiableSet());
+        cacheRegions.getCitiesByCountry().put(countryId, result,
+                List.of(Dependency.country(countryId)), ticket);
         logger.info("Cities with countryId_{} loaded from database and cached", countryId);
         if (logger.isInfoEnabled()) {
             logger.info("{}", result);
@@ -131,8 +130,7 @@ public class CityService {
     }
 
     public void evictCitiesByCountryCache(Long countryId) {
-        String cacheKey = CITIES_BY_COUNTRY_PREFIX + countryId;
-        searchCache.remove(cacheKey);
+        cacheRegions.getCitiesByCountry().invalidate(countryId);
         logger.info("Evicted cities cache for country {}", countryId);
     }
 
@@ -159,25 +157,61 @@ public class CityService {
         }
 
         cityRequest.setCountry(country);
-        updateCache(country, "ADD");
         City savedCity = cityRepository.save(cityRequest);
         logger.info("➕ Added city with ID: {} to country with ID: {}", savedCity.getId(),
                 countryId);
         return savedCity;
     }
 
+    /**
+     * Inserts the valid cities of {@code citiesRequest} into the country in one batch
+     * and reports the others per row: those without a name, and those whose name the
+     * country already has or that repeat an earlier row, ignoring case.
+     */
     @Transactional
-    public List<City> addNewCitiesByCountryId(final Long countryId,
-                                              final List<City> citiesRequest) {
+    public BulkResult<City> addNewCitiesByCountryId(final Long countryId,
+                                                    final List<City> citiesRequest) {
         if (countryId == null) {
             throw new IllegalArgumentException("Country ID cannot be null");
         }
         if (citiesRequest == null) {
             throw new IllegalArgumentException("Cities request cannot be null");
         }
-        List<City> addedCities = new ArrayList<>();
-        citiesRequest.forEach(city -> addedCities.add(addNewCityByCountryId(countryId, city)));
-        return addedCities;
+        if (!countryRepository.existsById(countryId)) {
+            throw new ObjectNotFoundException("country, which id "
+                    + countryId + " does not exist, you can't add new city");
+        }
+        Country country = countryRepository.getReferenceById(countryId);
+
+        Set<String> names = citiesRequest.stream()
+                .filter(Objects::nonNull)
+                .map(City::getName)
+                .filter(Objects::nonNull)
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        Set<String> taken = names.isEmpty() ? new HashSet<>()
+                : new HashSet<>(cityRepository.findExistingLowerCaseNames(countryId, names));
+        List<City> accepted = new ArrayList<>();
+        List<BulkResult.RowError> errors = new ArrayList<>();
+        for (int i = 0; i < citiesRequest.size(); i++) {
+            City city = citiesRequest.get(i);
+            String name = city == null ? null : city.getName();
+            if (name == null || name.isEmpty()) {
+                errors.add(new BulkResult.RowError(i, name, "City name cannot be null or empty"));
+            } else if (!taken.add(name.toLowerCase(Locale.ROOT))) {
+                errors.add(new BulkResult.RowError(i, name,
+                        "City with name " + name + " already exists"));
+            } else {
+                city.setId(null);
+                city.setCountry(country);
+                accepted.add(city);
+            }
+        }
+
+        List<City> savedCities = cityRepository.saveAll(accepted);
+        logger.info("➕ Added {} cities to country with ID: {}, rejected {}", savedCities.size(),
+                countryId, errors.size());
+        return new BulkResult<>(savedCities, errors);
     }
 
     @Transactional
@@ -211,10 +245,6 @@ public class CityService {
                         && !Double.isInfinite(a))
                 .ifPresent(city::setAreaSquareKm);
 
-
-        updateCache(country, "UPDATE");
-
-
         cityRepository.save(city);
         logger.info("✏️ Обновлён город с ID: {}. Операция: UPDATE", cityId);
         return city;
@@ -225,17 +255,18 @@ public class CityService {
         if (countryId == null) {
             throw new IllegalArgumentException("Country ID cannot be null");
         }
-        Country country = countryRepository.findCountryWithCitiesById(countryId)
-                .orElseThrow(() -> new ObjectNotFoundException(NOT_FOUND_MESSAGE));
+        if (!countryRepository.existsById(countryId)) {
+            throw new ObjectNotFoundException(NOT_FOUND_MESSAGE);
+        }
 
-        Set<City> citiesToDelete = new HashSet<>(country.getCities());
+        List<Long> cityIds = cityRepository.findIdsByCountryId(countryId);
         logger.info("🗑️ Deleting {} cities from country with ID: {}",
-                citiesToDelete.size(), countryId);
+                cityIds.size(), countryId);
+        cityRepository.deleteAllByCountryId(countryId);
 
-        updateCache(country, "DELETE");
-        cityRepository.deleteAll(citiesToDelete);
-        country.getCities().clear();
-        countryRepository.save(country);
+        List<Dependency> changed = Dependency.of(Dependency.EntityType.CITY, cityIds);
+        changed.add(Dependency.country(countryId));
+        dependencyGraph.invalidate(changed);
     }
 
     @Transactional
@@ -254,20 +285,10 @@ public class CityService {
         }
 
         cityRepository.delete(city);
-        invalidateCityCaches(cityId, countryId);
 
         logger.info("🗑️ Deleted city with ID: {}", cityId);
     }
 
-    private void invalidateCityCaches(Long cityId, Long countryId) {
-        searchCache.remove(ALL_CITIES);
-        searchCache.remove(CITY_PREFIX + cityId);
-        if (countryId != null) {
-            searchCache.remove(CITIES_BY_COUNTRY_PREFIX + countryId);
-            searchCache.remove(COUNTRY_PREFIX + countryId);
-        }
-    }
-
     @Transactional
     public void deleteCityByIdFromCountryByCountryId(final Long countryId, final Long cityId) {
         if (countryId == null || cityId == null) {
@@ -285,7 +306,6 @@ public class CityService {
 
         logger.info("🗑️ Deleting city with ID: {} from country with ID: {}", cityId, countryId);
 
-        updateCache(country, "DELETE");
         cityRepository.deleteById(cityId);
         country.getCities().remove(city);
         countryRepository.save(country);
@@ -1,24 +1,32 @@
 package org.example.service;
 
 import jakarta.transaction.Transactional;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
+import org.example.cache.CacheDependencyGraph;
+import org.example.cache.CacheRegions;
+import org.example.cache.Dependency;
 import org.example.cache.SearchCache;
-import org.example.dto.CountryDto;
+import org.example.dto.BulkResult;
+import org.example.dto.CountrySnapshot;
+import org.example.dto.KeysetPage;
 import org.example.exception.ObjectExistedException;
 import org.example.exception.ObjectNotFoundException;
-import org.example.model.City;
 import org.example.model.Country;
 import org.example.repository.CityRepository;
 import org.example.repository.CountryRepository;
-import org.hibernate.Hibernate;
+import org.example.snapshot.EntityGraph;
+import org.example.snapshot.EntityGraphStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 
@@ -31,52 +39,86 @@ public class CountryService {
 
     private final CountryRepository countryRepository;
     private final SearchCache searchCache;
+    private final CacheRegions cacheRegions;
+    private final CacheDependencyGraph dependencyGraph;
+    private final EntityGraphStore entityGraphs;
 
-    private static final String ALL_CITIES = "allCities";
     private static final String ALL_COUNTRIES = "all_countries";
-    private static final String COUNTRY_PREFIX = "country_";
-    private static final String CITIES_BY_COUNTRY_PREFIX = "cities_country_";
-    private static final String COUNTRIES_BY_NATION_PREFIX = "countries_nation_";
+    private static final Duration ALL_COUNTRIES_TTL = Duration.ofMinutes(2);
+    private static final List<Dependency> ALL_COUNTRIES_DEPENDENCIES = List.of(
+            Dependency.any(Dependency.EntityType.COUNTRY),
+            Dependency.any(Dependency.EntityType.NATION));
 
 
     @Transactional
-    public List<Country> getCountries() {
+    public List<CountrySnapshot> getCountries() {
         logger.debug("Attempting to get all countries");
 
-        if (searchCache.containsKey(ALL_COUNTRIES)) {
-            List<Country> cached = (List<Country>) searchCache.get(ALL_COUNTRIES);
-            logger.info("✅ Retrieved {} countries from cache", cached.size());
-            return cached;
+        EntityGraph graph = entityGraphs.current();
+        if (graph != null) {
+            return graph.countries();
         }
+        List<CountrySnapshot> countries = searchCache.get(ALL_COUNTRIES, ALL_COUNTRIES_TTL,
+                ALL_COUNTRIES_DEPENDENCIES, this::loadCountries);
+        logger.info("✅ Retrieved {} countries", countries.size());
+        return countries;
+    }
 
-        List<Country> countries = countryRepository.findAllWithCitiesAndNations();
-        initializeLazyCollections(countries);
+    @Transactional
+    public KeysetPage<CountrySnapshot> getCountriesPage(long after, int limit) {
+        EntityGraph graph = entityGraphs.current();
+        if (graph != null) {
+            return KeysetPage.of(graph.countriesAfter(after, KeysetPage.checkLimit(limit)), limit,
+                    CountrySnapshot::id);
+        }
+        List<CountrySnapshot> countries = countryRepository
+                .findPageAfter(after, PageRequest.ofSize(KeysetPage.checkLimit(limit)))
+                .stream()
+                .map(CountrySnapshot::summaryOf)
+                .toList();
+        return KeysetPage.of(countries, limit, CountrySnapshot::id);
+    }
 
-        searchCache.put(ALL_COUNTRIES, countries);
+    private List<CountrySnapshot> loadCountries() {
+        List<CountrySnapshot> countries = countryRepository.findAllWithCitiesAndNations()
+                .stream()
+                .map(CountrySnapshot::of)
+                .toList();
         logger.info("🔄 Fetched {} countries from DB and cached", countries.size());
         return countries;
     }
 
 
     @Transactional
-    public Country getCountryById(Long countryId) {
-        String cacheKey = COUNTRY_PREFIX + countryId;
-        logger.debug("Looking for country in cache: {}", cacheKey);
-
-        if (searchCache.containsKey(cacheKey)) {
-            logger.info("✅ Country found in cache: {}", cacheKey);
-            return (Country) searchCache.get(cacheKey);
+    public CountrySnapshot getCountryById(Long countryId) {
+        logger.debug("Looking for country in cache: {}", countryId);
+
+        EntityGraph graph = entityGraphs.current();
+        if (graph != null) {
+            CountrySnapshot country = graph.country(countryId);
+            if (country == null) {
+                logger.error("🚫 Country not found with ID: {}", countryId);
+                throw new ObjectNotFoundException("Country not found");
+            }
+            return country;
+        }
+        CountrySnapshot cached = cacheRegions.getCountries().get(countryId);
+        if (cached != null) {
+            logger.info("✅ Country found in cache: {}", countryId);
+            return cached;
         }
 
-        Country country = countryRepository.findCountryWithCitiesAndNationsById(countryId)
+        long ticket = cacheRegions.getCountries().ticket();
+        CountrySnapshot country = countryRepository.findCountryWithCitiesAndNationsById(countryId)
+                .map(CountrySnapshot::of)
                 .orElseThrow(() -> {
                     logger.error("🚫 Country not found with ID: {}", countryId);
                     return new ObjectNotFoundException("Country not found");
                 });
 
-        initializeLazyCollections(country);
-        searchCache.put(cacheKey, country);
-        logger.info("🔄 Country loaded from DB and cached: {}", cacheKey);
+        cacheRegions.getCountries().put(countryId, country, Dependency.ofCountryGraph(country),
+                ticket);
+        logger.info("🔄 Country loaded from DB and cached: {}", countryId);
         return country;
     }
 
@@ -95,8 +137,9 @@ public class CountryService {
         country.setCities(new HashSet<>());
         Country savedCountry = countryRepository.save(country);
 
-        searchCache.remove(ALL_COUNTRIES);
-        searchCache.put(COUNTRY_PREFIX + savedCountry.getId(), savedCountry);
+        CountrySnapshot snapshot = CountrySnapshot.of(savedCountry);
+        cacheRegions.getCountries().putAfterCommit(snapshot.id(), snapshot,
+                Dependency.ofCountryGraph(snapshot));
         logger.info("✨ Created country: {} (ID: {})", savedCountry.getName(), savedCountry.getId());
         return savedCountry;
     }
@@ -108,8 +151,6 @@ public class CountryService {
         logger.debug("Updating country ID: {}", countryId);
         Country country = countryRepository.findCountryWithCitiesAndNationsById(countryId)
                 .orElseThrow(() -> new ObjectNotFoundException("Country not found"));
-        Country originalCountry = new Country();
-        BeanUtils.copyProperties(country, originalCountry);
         if (name != null && !name.equals(country.getName())) {
             countryRepository.findCountryByName(name)
                     .ifPresent(c -> {
@@ -123,143 +164,92 @@ public class CountryService {
         Optional.ofNullable(areaSquareKm).ifPresent(country::setAreaSquareKm);
         Optional.ofNullable(gdp).ifPresent(country::setGdp);
         Country updatedCountry = countryRepository.save(country);
-        updateCache(originalCountry, updatedCountry);
-        invalidateCitiesCacheForCountry(countryId);
         logger.info("🔄 Updated country ID: {}", countryId);
         return updatedCountry;
     }
 
-    private void invalidateCitiesCacheForCountry(Long countryId) {
-        searchCache.remove(CITIES_BY_COUNTRY_PREFIX + countryId);
-        searchCache.remove(ALL_CITIES);
-        logger.info("Invalidated cities cache for country ID: {}", countryId);
-    }
-
-
     @Transactional
     public void deleteCountry(Long id) {
         logger.warn("Attempting to delete country ID: {}", id);
 
-        Country country = countryRepository.findCountryWithCitiesById(id)
-                .orElseThrow(() -> new ObjectNotFoundException("Country not found with ID: " + id));
-
-        for (City city : country.getCities()) {
-            city.setCountry(null);
-            cityRepository.save(city);
-        }
-        country.getCities().clear();
-
-        if (country.getNations() != null) {
-            country.getNations().forEach(nation -> nation.getCountries().remove(country));
-            country.getNations().clear();
-        }
-
-
-        countryRepository.delete(country);
-
-        invalidateDependentCaches(country);
-        searchCache.remove(ALL_CITIES);
-        searchCache.remove("allCitiesByCountryId_" + id);
-        logger.info("🗑️ Deleted country ID: {}", id);
-    }
-
-
-    private void initializeLazyCollections(Country country) {
-        if (country.getCities() != null) {
-            Hibernate.initialize(country.getCities());
-        }
-        if (country.getNations() != null) {
-            Hibernate.initialize(country.getNations());
-            country.getNations().forEach(nation ->
-                    Hibernate.initialize(nation.getCountries())
-            );
+        if (!countryRepository.existsById(id)) {
+            throw new ObjectNotFoundException("Country not found with ID: " + id);
         }
+        List<Long> cityIds = cityRepository.findIdsByCountryId(id);
+        List<Long> nationIds = countryRepository.findNationIdsById(id);
+
+        cityRepository.detachAllFromCountry(id);
+        countryRepository.unlinkNations(id);
+        countryRepository.deleteAllByIdInBatch(List.of(id));
+
+        List<Dependency> changed = new ArrayList<>();
+        changed.add(Dependency.country(id));
+        changed.addAll(Dependency.of(Dependency.EntityType.CITY, cityIds));
+        changed.addAll(Dependency.of(Dependency.EntityType.NATION, nationIds));
+        dependencyGraph.invalidate(changed);
+        logger.info("🗑️ Deleted country ID: {}, detached {} cities", id, cityIds.size());
     }
 
-    private void initializeLazyCollections(List<Country> countries) {
-        countries.forEach(this::initializeLazyCollections);
-    }
-
-    private void updateCache(Country oldCountry, Country newCountry) {
-
-        searchCache.remove(COUNTRY_PREFIX + oldCountry.getId());
-        searchCache.remove(ALL_COUNTRIES);
-
-
-        newCountry.getNations().forEach(nation ->
-                searchCache.remove(COUNTRIES_BY_NATION_PREFIX + nation.getId())
-        );
-
-
-        searchCache.put(COUNTRY_PREFIX + newCountry.getId(), newCountry);
-        searchCache.remove(CITIES_BY_COUNTRY_PREFIX + newCountry.getId());
-
-    }
-
-    private void invalidateDependentCaches(Country country) {
-        searchCache.remove(COUNTRY_PREFIX + country.getId());
-        searchCache.remove(ALL_COUNTRIES);
-        searchCache.remove(CITIES_BY_COUNTRY_PREFIX + country.getId());
-
-        country.getNations().forEach(nation ->
-                searchCache.remove(COUNTRIES_BY_NATION_PREFIX + nation.getId())
-        );
-    }
 
+    /**
+     * Inserts the valid countries of {@code countries} in one batch and reports the
+     * others per row: those without a name, and those whose name is already taken or
+     * repeated earlier in the request.
+     */
     @Transactional
-    public List<Country> addNewCountries(List<Country> countries) {
+    public BulkResult<Country> addNewCountries(List<Country> countries) {
+        if (countries == null) {
+            throw new IllegalArgumentException("Countries request cannot be null");
+        }
         logger.debug("Attempting to add {} countries", countries.size());
 
-        List<Country> savedCountries = new ArrayList<>();
-        for (Country country : countries) {
-
-            savedCountries.add(this.addNewCountry(country));
+        Set<String> names = countries.stream()
+                .filter(Objects::nonNull)
+                .map(Country::getName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> taken = names.isEmpty() ? new HashSet<>()
+                : new HashSet<>(countryRepository.findExistingNames(names));
+        List<Country> accepted = new ArrayList<>();
+        List<BulkResult.RowError> errors = new ArrayList<>();
+        for (int i = 0; i < countries.size(); i++) {
+            Country country = countries.get(i);
+            String name = country == null ? null : country.getName();
+            if (name == null || name.isBlank()) {
+                errors.add(new BulkResult.RowError(i, name, "Country name cannot be empty"));
+            } else if (!taken.add(name)) {
+                errors.add(new BulkResult.RowError(i, name, "Country exists"));
+            } else {
+                country.setId(null);
+                country.setNations(new HashSet<>());
+                country.setCities(new HashSet<>());
+                accepted.add(country);
+            }
         }
 
-        logger.info("✨ Added {} countries", savedCountries.size());
-        return savedCountries;
+        List<Country> savedCountries = countryRepository.saveAll(accepted);
+        logger.info("✨ Added {} countries, rejected {}", savedCountries.size(), errors.size());
+        return new BulkResult<>(savedCountries, errors);
     }
 
     @Transactional
     public void deleteCountries() {
         logger.warn("Attempting to delete all countries");
 
-
-        searchCache.clear();
-        logger.debug("♻️ Cleared all cache entries");
-
-
-        countryRepository.deleteAll();
-        logger.info("🗑️ Deleted all countries");
-
-
-        countryRepository.findAllWithCities().forEach(country ->
-                country.getCities().clear()
-        );
-    }
-
-    public List<CountryDto> searchCountriesByCityName(String cityName) {
-        List<Country> countries = countryRepository.findCountriesByCityName(cityName);
-        return convertToCountryDtoList(countries);
-    }
-
-    private List<CountryDto> convertToCountryDtoList(List<Country> countries) {
-        return countries.stream()
-                .map(this::convertToCountryDto)
-                .toList();
-    }
-
-    private CountryDto convertToCountryDto(Country country) {
-        CountryDto dto = new CountryDto();
-        dto.setId(country.getId());
-        dto.setName(country.getName());
-        dto.setCapital(country.getCapital());
-        dto.setPopulation(country.getPopulation());
-        dto.setAreaSquareKm(country.getAreaSquareKm());
-        dto.setGdp(country.getGdp());
-        dto.setCityIds(country.getCities().stream()
-                .map(City::getId)
-                .collect(Collectors.toSet()));
-        return dto;
+        List<Long> countryIds = countryRepository.findAllIds();
+        List<Long> cityIds = cityRepository.findIdsWithCountry();
+        List<Long> nationIds = countryRepository.findAllLinkedNationIds();
+
+        countryRepository.unlinkAllNations();
+        cityRepository.deleteAllWithCountry();
+        countryRepository.deleteAllInBatch();
+
+        List<Dependency> changed = new ArrayList<>();
+        changed.addAll(Dependency.of(Dependency.EntityType.COUNTRY, countryIds));
+        changed.addAll(Dependency.of(Dependency.EntityType.CITY, cityIds));
+        changed.addAll(Dependency.of(Dependency.EntityType.NATION, nationIds));
+        dependencyGraph.invalidate(changed);
+        logger.info("🗑️ Deleted all {} countries and their {} cities", countryIds.size(),
+                cityIds.size());
     }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import org.example.dto.CitySnapshot;
+import org.example.dto.CountryExport;
+import org.example.dto.NationSnapshot;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Streams every country with its cities and nations as newline-delimited JSON.
+ * Countries are read in id order through a forward-only server-side cursor in a
+ * read-only stateless session, so nothing accumulates in a persistence context;
+ * cities and nations are fetched per batch of countries with one {@code IN} query
+ * each. Memory use is bounded by the batch size, whatever the size of the dataset.
+ */
+@Service
+@AllArgsConstructor
+public class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+    private static final int FETCH_SIZE = 500;
+    private static final int BATCH_SIZE = 100;
+    private static final byte NEWLINE = '\n';
+
+    private static final String COUNTRIES = "SELECT c.id, c.name, c.capital, c.population,"
+            + " c.areaSquareKm, c.gdp FROM Country c WHERE c.id > :after ORDER BY c.id";
+    private static final String CITIES = "SELECT ci.country.id, ci.id, ci.name, ci.population,"
+            + " ci.areaSquareKm FROM City ci WHERE ci.country.id IN :ids ORDER BY ci.id";
+    private static final String NATIONS = "SELECT c.id, n.id, n.name, n.language, n.religion"
+            + " FROM Country c JOIN c.nations n WHERE c.id IN :ids ORDER BY n.id";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes one JSON line per country with an id greater than {@code after}, in id
+     * order, so an interrupted export can resume from the last id it received.
+     */
+    public void exportCountries(long after, OutputStream out) throws IOException {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        long exported = 0;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.doWork(connection -> connection.setReadOnly(true));
+            Transaction transaction = session.beginTransaction();
+            try (ScrollableResults<Object[]> countries = session
+                    .createQuery(COUNTRIES, Object[].class)
+                    .setParameter("after", after)
+                    .setFetchSize(FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+                while (countries.next()) {
+                    batch.add(countries.get());
+                    if (batch.size() == BATCH_SIZE) {
+                        exported += writeBatch(session, batch, out);
+                        batch.clear();
+                    }
+                }
+                exported += writeBatch(session, batch, out);
+                transaction.commit();
+            } catch (IOException | RuntimeException e) {
+                transaction.rollback();
+                throw e;
+            }
+        }
+        logger.info("📤 Exported {} countries after id {}", exported, after);
+    }
+
+    private int writeBatch(StatelessSession session, List<Object[]> batch, OutputStream out)
+            throws IOException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = batch.stream().map(row -> (Long) row[0]).toList();
+        Map<Long, List<CitySnapshot>> cities = new HashMap<>();
+        for (Object[] row : session.createQuery(CITIES, Object[].class)
+                .setParameter("ids", ids).setReadOnly(true).list()) {
+            cities.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add(new CitySnapshot((Long) row[1], (String) row[2], (Double) row[3],
+                            (Double) row[4], null));
+        }
+        Map<Long, List<NationSnapshot>> nations = new HashMap<>();
+        for (Object[] row : session.createQuery(NATIONS, Object[].class)
+                .setParameter("ids", ids).setReadOnly(true).list()) {
+            nations.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add(new NationSnapshot((Long) row[1], (String) row[2], (String) row[3],
+                            (String) row[4]));
+        }
+        for (Object[] row : batch) {
+            Long id = (Long) row[0];
+            out.write(objectMapper.writeValueAsBytes(new CountryExport(id, (String) row[1],
+                    (String) row[2], (Double) row[3], (Double) row[4], (Double) row[5],
+                    cities.getOrDefault(id, List.of()), nations.getOrDefault(id, List.of()))));
+            out.write(NEWLINE);
+        }
+        out.flush();
+        return batch.size();
+    }
+}
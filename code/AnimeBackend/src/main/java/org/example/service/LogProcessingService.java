@@ -1,44 +1,114 @@
 package org.example.service;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.stream.Collectors;
 import org.example.exception.LogsException;
+import org.example.exception.ObjectExistedException;
 import org.example.exception.ObjectNotFoundException;
+import org.example.exception.ServiceBusyException;
 import org.example.exception.ValidationException;
+import org.example.logs.DayLog;
+import org.example.logs.LogStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+/**
+ * Finds the log entries of a day through a {@link LogStore} over the rolling logs in
+ * {@code logs/}: a lookup of the day's segments, and of its byte ranges of the active
+ * file, that callers stream straight from the files, with no copy written or read back.
+ *
+ * <p>Export tasks run on the bounded {@code logExportExecutor}; when its queue is full,
+ * or {@code logs.tasks.max} tasks are registered, new ones are refused with
+ * {@link ServiceBusyException}. A task for a date that already has one pending or
+ * running gets that task's id. Finished tasks are dropped {@code logs.tasks.ttl} after
+ * they finish. Lookups for a request run on the same executor, so request threads never
+ * wait on the disk; downloads, which Tomcat can only hand to sendfile from the request's
+ * own thread, are looked up there instead, against an index of the active file kept
+ * current every {@code logs.index.refresh-interval}, so they only index the last few
+ * lines. Status changes are handed to subscribers on {@code logEventExecutor},
+ * each getting only the latest status it hasn't seen yet, so a slow subscriber delays
+ * neither the task nor anyone else's lookup.
+ */
 @Service
 public class LogProcessingService {
 
     private static final Logger logger = LoggerFactory.getLogger(LogProcessingService.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter
             .ofPattern("yyyy-MM-dd");
-    private static final Path LOG_PATH = Paths.get("logs/application.log");
-    private static final Path LOGS_DIR = Paths.get("logs");
+    private static final Path LOG_DIRECTORY = Paths.get("logs");
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(1);
+    private static final String PENDING = "PENDING";
+    private static final String RUNNING = "RUNNING";
+    private static final String COMPLETED = "COMPLETED";
+    private static final String FAILED = "FAILED";
+    private static final String CANCELLED = "CANCELLED";
 
-    private final Map<String, LogTaskStatus> taskStatusMap = new ConcurrentHashMap<>();
+    private final LogStore logStore = new LogStore(LOG_DIRECTORY, "application");
+    private final ThreadPoolTaskExecutor executor;
+    private final ThreadPoolTaskExecutor eventExecutor;
+    private final TaskScheduler scheduler;
+    private final Duration taskTtl;
+    private final Duration indexRefreshInterval;
+    private final int maxTasks;
+    private final Map<String, LogTask> tasks = new ConcurrentHashMap<>();
+    private final Map<LocalDate, LogTask> inFlight = new ConcurrentHashMap<>();
+    private final Object registryLock = new Object();
+
+    public LogProcessingService(
+            @Qualifier("logExportExecutor") ThreadPoolTaskExecutor executor,
+            @Qualifier("logEventExecutor") ThreadPoolTaskExecutor eventExecutor,
+            @Qualifier("cacheMaintenanceScheduler") TaskScheduler scheduler,
+            @Value("${logs.tasks.ttl:1h}") Duration taskTtl,
+            @Value("${logs.index.refresh-interval:10s}") Duration indexRefreshInterval,
+            @Value("${logs.tasks.max:1000}") int maxTasks) {
+        this.executor = executor;
+        this.eventExecutor = eventExecutor;
+        this.scheduler = scheduler;
+        this.taskTtl = taskTtl;
+        this.indexRefreshInterval = indexRefreshInterval;
+        this.maxTasks = maxTasks;
+    }
 
     public static class LogTaskStatus {
         private final String status;
         private final String filePath;
         private final String errorMessage;
+        private final int progress;
 
-        public LogTaskStatus(String status, String filePath, String errorMessage) {
+        public LogTaskStatus(String status, String filePath, String errorMessage,
+                             int progress) {
             this.status = status;
             this.filePath = filePath;
             this.errorMessage = errorMessage;
+            this.progress = progress;
         }
 
         public String getStatus() {
@@ -52,84 +122,342 @@ public class LogProcessingService {
         public String getErrorMessage() {
             return errorMessage;
         }
+
+        /** Percent of the lookup done. */
+        public int getProgress() {
+            return progress;
+        }
+
+        /** Whether the task is completed, failed or cancelled, and won't change again. */
+        public boolean isFinished() {
+            return !PENDING.equals(status) && !RUNNING.equals(status);
+        }
     }
 
     public String startLogFileCreation(String date) {
-        String taskId = UUID.randomUUID().toString();
-        taskStatusMap.put(taskId, new LogTaskStatus("PENDING", null, null));
-        logger.info("Starting log file creation for date: {}, taskId: {}", date, taskId);
-
-        CompletableFuture.runAsync(() -> {
+        LocalDate day = parseDate(date);
+        LogTask task;
+        synchronized (registryLock) {
+            LogTask existing = inFlight.get(day);
+            if (existing != null) {
+                logger.info("Log file creation for date {} already in progress, taskId: {}",
+                        date, existing.id);
+                return existing.id;
+            }
+            if (tasks.size() >= maxTasks) {
+                purgeExpired();
+                if (tasks.size() >= maxTasks) {
+                    throw new ServiceBusyException("Too many log tasks, try again later");
+                }
+            }
+            task = new LogTask(UUID.randomUUID().toString(), day);
+            tasks.put(task.id, task);
+            inFlight.put(day, task);
             try {
-                // Introduce a 20-second delay
-                Thread.sleep(20000);
-
-                String filteredLogs = getFilteredLogs(date);
-                Path logFile = LOGS_DIR.resolve(date + "_" + taskId + ".log");
-                logger.debug("Writing logs to file: {}", logFile);
-                Files.createDirectories(LOGS_DIR);
-                Files.write(logFile, filteredLogs.getBytes(StandardCharsets.UTF_8),
-                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-                logger.info("Log file created successfully: {}", logFile);
-                taskStatusMap.put(taskId, new LogTaskStatus("COMPLETED", logFile.toString(), null));
-            } catch (InterruptedException e) {
-                logger.error("Interrupted during delay for taskId: {}", taskId, e);
-                taskStatusMap.put(taskId,
-                        new LogTaskStatus("FAILED", null, "Interrupted during processing"));
-                Thread.currentThread().interrupt();
-            } catch (Exception e) {
-                logger.error("Failed to create log file for date: {}, taskId: {}", date, taskId, e);
-                taskStatusMap.put(taskId, new LogTaskStatus("FAILED", null, e.getMessage()));
+                task.future = executor.submit(() -> run(task));
+            } catch (TaskRejectedException e) {
+                tasks.remove(task.id);
+                inFlight.remove(day, task);
+                throw new ServiceBusyException("Log task queue is full, try again later");
             }
-        });
-
-        return taskId;
+        }
+        logger.info("Starting log file creation for date: {}, taskId: {}", date, task.id);
+        return task.id;
     }
 
     public LogTaskStatus getTaskStatus(String taskId) {
-        LogTaskStatus status = taskStatusMap.get(taskId);
-        if (status == null) {
-            throw new ObjectNotFoundException("Task ID not found: " + taskId);
+        return task(taskId).status();
+    }
+
+    /**
+     * Calls {@code listener} with the status of a task now and on changes of it, the
+     * last call being with its final status. The calls are made in order on
+     * {@code logEventExecutor}; statuses that change again before the listener gets to
+     * them are skipped. Running the returned handle stops the calls early.
+     */
+    public Runnable subscribe(String taskId, Consumer<LogTaskStatus> listener) {
+        LogTask task = task(taskId);
+        Subscriber subscriber = new Subscriber(task, listener, eventExecutor);
+        task.subscribe(subscriber);
+        return subscriber::cancel;
+    }
+
+    /** Cancels a pending or running task. */
+    public LogTaskStatus cancelTask(String taskId) {
+        LogTask task = task(taskId);
+        if (!task.finish(CANCELLED, null, null)) {
+            throw new ObjectExistedException("Task already finished: " + taskId);
+        }
+        inFlight.remove(task.day, task);
+        Future<?> future = task.future;
+        if (future != null) {
+            future.cancel(true);
         }
-        return status;
+        logger.info("Log file creation cancelled, taskId: {}", taskId);
+        return task.status();
     }
 
-    public Path getLogFilePath(String taskId) {
-        LogTaskStatus status = getTaskStatus(taskId);
-        if (!"COMPLETED".equals(status.getStatus()) || status.getFilePath() == null) {
-            throw
+    /** The log entries found by a completed task. */
+    public DayLog getDayLog(String taskId) {
+        DayLog log = task(taskId).result();
+        if (log == null) {
+            throw new ObjectNotFoundException("Log file not available for task ID: " + taskId);
+        }
+        return log;
+    }
+
+    /** The entries of {@code date} in the logs, as the segments holding them. */
+    public DayLog findLogs(String date) {
+        return findLogs(parseDate(date), done -> { });
+    }
 
-                    new ObjectNotFoundException("Log file not available for task ID: " + taskId);
+    /**
+     * As {@link #findLogs(String)}, looking the entries up on the export executor. An
+     * invalid date fails at once; the lookup's own errors fail the future.
+     */
+    public CompletableFuture<DayLog> findLogsAsync(String date) {
+        LocalDate day = parseDate(date);
+        try {
+            return CompletableFuture.supplyAsync(() -> findLogs(day, done -> { }), executor);
+        } catch (TaskRejectedException e) {
+            throw new ServiceBusyException("Log task queue is full, try again later");
         }
-        return Paths.get(status.getFilePath());
     }
 
-    private String getFilteredLogs(String date) throws IOException {
+    @EventListener(ApplicationReadyEvent.class)
+    public void schedulePurge() {
+        scheduler.scheduleWithFixedDelay(this::purgeExpired, Instant.now().plus(PURGE_INTERVAL),
+                PURGE_INTERVAL);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleIndexRefresh() {
+        scheduler.scheduleWithFixedDelay(this::refreshIndex, indexRefreshInterval);
+    }
+
+    /** Drops the tasks that finished more than {@code logs.tasks.ttl} ago. */
+    public void purgeExpired() {
+        long expiredBefore = System.nanoTime() - taskTtl.toNanos();
+        tasks.values().removeIf(task -> task.finishedBefore(expiredBefore));
+    }
+
+    /** Indexes the active log on the export executor; skipped while it is saturated. */
+    private void refreshIndex() {
         try {
-            LocalDate logDate = LocalDate.parse(date, DATE_FORMATTER);
-            if (logDate.isAfter(LocalDate.now())) {
-                throw new ValidationException("Date cannot be in the future");
+            executor.execute(() -> {
+                try {
+                    logStore.refresh();
+                } catch (IOException e) {
+                    logger.warn("Failed to index the active log: {}", e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            logger.debug("Log index refresh skipped: {}", e.getMessage());
+        }
+    }
+
+    private void run(LogTask task) {
+        if (!task.start()) {
+            return;
+        }
+        try {
+            DayLog log = findLogs(task.day, task::progress);
+            if (task.finish(COMPLETED, log, null)) {
+                logger.info("Log segments found for taskId {}: {}", task.id,
+                        log.segments().size());
+            }
+        } catch (RuntimeException e) {
+            if (task.finish(FAILED, null, e.getMessage())) {
+                logger.error("Failed to create log file for date: {}, taskId: {}", task.day,
+                        task.id, e);
             }
-        } catch (java.time.format.DateTimeParseException e) {
+        } finally {
+            inFlight.remove(task.day, task);
+        }
+    }
+
+    private LogTask task(String taskId) {
+        LogTask task = tasks.get(taskId);
+        if (task == null) {
+            throw new ObjectNotFoundException("Task ID not found: " + taskId);
+        }
+        return task;
+    }
+
+    private static LocalDate parseDate(String date) {
+        LocalDate logDate;
+        try {
+            logDate = LocalDate.parse(date, DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
             throw new ValidationException("Invalid date format. Please use yyyy-MM-dd");
         }
+        if (logDate.isAfter(LocalDate.now())) {
+            throw new ValidationException("Date cannot be in the future");
+        }
+        return logDate;
+    }
 
-        if (!Files.exists(LOG_PATH)) {
+    private DayLog findLogs(LocalDate date, DoubleConsumer progress) {
+        try {
+            return logStore.find(date, progress).orElseThrow(() ->
+                    new ObjectNotFoundException("No log entries found for date: " + date));
+        } catch (NoSuchFileException e) {
             throw new ObjectNotFoundException("Log file not found");
+        } catch (IOException e) {
+            throw new LogsException("Error reading log file: " + e.getMessage());
         }
+    }
 
-        try (java.util.stream.Stream<String> lines = Files.lines(LOG_PATH)) {
-            String filtered = lines
-                    .filter(line -> line.startsWith(date))
-                    .collect(java.util.stream.Collectors.joining("\n"));
+    private static String files(DayLog log) {
+        return log.segments().stream()
+                .map(segment -> segment.file().toString())
+                .collect(Collectors.joining(", "));
+    }
+
+    /** An export task; its state only moves forward, from pending to one final state. */
+    private static final class LogTask {
+        private final String id;
+        private final LocalDate day;
+        private volatile Future<?> future;
+        private String state = PENDING;
+        private int progress;
+        private DayLog result;
+        private String errorMessage;
+        private long finishedAt;
+        private final List<Subscriber> subscribers = new ArrayList<>();
 
-            if (filtered.isEmpty()) {
-                throw new ObjectNotFoundException("No log entries found for date: " + date);
+        LogTask(String id, LocalDate day) {
+            this.id = id;
+            this.day = day;
+        }
+
+        synchronized boolean start() {
+            if (!PENDING.equals(state)) {
+                return false;
             }
+            state = RUNNING;
+            notifyListeners();
+            return true;
+        }
 
-            return filtered;
-        } catch (IOException e) {
-            throw new LogsException("Error reading log file: " + e.getMessage());
+        synchronized void progress(double done) {
+            int percent = (int) (done * 100);
+            if (percent != progress) {
+                progress = percent;
+                notifyListeners();
+            }
+        }
+
+        /** Moves to a final state, unless already in one. */
+        synchronized boolean finish(String finalState, DayLog log, String error) {
+            if (!PENDING.equals(state) && !RUNNING.equals(state)) {
+                return false;
+            }
+            state = finalState;
+            result = log;
+            errorMessage = error;
+            if (COMPLETED.equals(finalState)) {
+                progress = 100;
+            }
+            finishedAt = System.nanoTime();
+            notifyListeners();
+            subscribers.clear();
+            return true;
+        }
+
+        synchronized void subscribe(Subscriber subscriber) {
+            LogTaskStatus current = status();
+            if (subscriber.offer(current) && !current.isFinished()) {
+                subscribers.add(subscriber);
+            }
+        }
+
+        synchronized void unsubscribe(Subscriber subscriber) {
+            subscribers.remove(subscriber);
+        }
+
+        synchronized boolean finishedBefore(long nanoTime) {
+            return !PENDING.equals(state) && !RUNNING.equals(state) && finishedAt - nanoTime < 0;
+        }
+
+        synchronized DayLog result() {
+            return result;
+        }
+
+        synchronized LogTaskStatus status() {
+            return new LogTaskStatus(state, result == null ? null : files(result), errorMessage,
+                    progress);
+        }
+
+        /**
+         * Queues the new status for every subscriber; called holding the lock, so the
+         * statuses are queued in order, while the listeners are called later, outside it.
+         */
+        private void notifyListeners() {
+            LogTaskStatus current = status();
+            subscribers.removeIf(subscriber -> !subscriber.offer(current));
+        }
+    }
+
+    /**
+     * One listener of a task. Holds the latest status not delivered yet, and delivers
+     * it on the event executor, with at most one delivery queued or running at a time.
+     */
+    private static final class Subscriber {
+        private final LogTask task;
+        private final Consumer<LogTaskStatus> listener;
+        private final Executor executor;
+        private final AtomicReference<LogTaskStatus> latest = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean cancelled;
+
+        Subscriber(LogTask task, Consumer<LogTaskStatus> listener, Executor executor) {
+            this.task = task;
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        /** Queues {@code status}; {@code false} if the subscriber has to be dropped. */
+        boolean offer(LogTaskStatus status) {
+            if (cancelled) {
+                return false;
+            }
+            latest.set(status);
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (TaskRejectedException e) {
+                    cancelled = true;
+                    logger.warn("Log task events queue is full, subscriber dropped, taskId: {}",
+                            task.id);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void cancel() {
+            cancelled = true;
+            task.unsubscribe(this);
+        }
+
+        private void drain() {
+            do {
+                LogTaskStatus status;
+                while ((status = latest.getAndSet(null)) != null && !cancelled) {
+                    deliver(status);
+                }
+                scheduled.set(false);
+            } while (latest.get() != null && !cancelled && scheduled.compareAndSet(false, true));
+        }
+
+        private void deliver(LogTaskStatus status) {
+            try {
+                listener.accept(status);
+            } catch (RuntimeException e) {
+                cancel();
+                logger.warn("Log task listener failed, taskId: {}: {}", task.id, e.getMessage());
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,34 @@
 package org.example.service;
 
 import jakarta.transaction.Transactional;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
+import org.example.cache.CacheDependencyGraph;
+import org.example.cache.CacheRegions;
+import org.example.cache.Dependency;
 import org.example.cache.SearchCache;
+import org.example.dto.BulkResult;
+import org.example.dto.CountrySnapshot;
+import org.example.dto.KeysetPage;
+import org.example.dto.NationSnapshot;
 import org.example.exception.ObjectExistedException;
 import org.example.exception.ObjectNotFoundException;
 import org.example.model.Country;
 import org.example.model.Nation;
 import org.example.repository.CountryRepository;
 import org.example.repository.NationRepository;
+import org.example.snapshot.EntityGraph;
+import org.example.snapshot.EntityGraphStore;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 @AllArgsConstructor
@@ -27,85 +41,89 @@ public class NationService {
 
     private final SearchCache cacheService;
 
-    private static final String ALL_NATIONS_BY_COUNTRY_ID =
-            "allNationsByCountryId_";
-    private static final String ALL_COUNTRIES_BY_NATION_ID =
-            "allCountriesByNationId_";
-    private static final String ALL_NATIONS = "allNations";
-    private static final String COUNTRY_ID = "countryId_";
-    private static final String ALL_COUNTRIES = "allCountries";
+    private final CacheRegions cacheRegions;
 
-    private void cleanCache(final Long nationId, final Nation nation) {
+    private final CacheDependencyGraph dependencyGraph;
 
-        List<Country> countries = countryRepository
-                .findCountriesWithNationsByNationByNationId(nationId);
+    private final EntityGraphStore entityGraphs;
 
-        for (Country country : countries) {
-            if (cacheService.containsKey(
-                    ALL_NATIONS_BY_COUNTRY_ID + country.getId())) {
-                cacheService.remove(
-                        ALL_NATIONS_BY_COUNTRY_ID + country.getId());
-            }
-            if (cacheService.containsKey(COUNTRY_ID + country.getId())) {
-                cacheService.remove(COUNTRY_ID + country.getId());
+    private static final String ALL_NATIONS = "allNations";
+    private static final Duration ALL_NATIONS_TTL = Duration.ofMinutes(10);
+
+    public Set<NationSnapshot> getNationsByCountryId(final Long countryId) {
+        EntityGraph graph = entityGraphs.current();
+        if (graph != null) {
+            Set<NationSnapshot> nations = graph.nationsOfCountry(countryId);
+            if (nations == null) {
+                throw countryNotFound(countryId);
             }
+            return nations;
         }
-
-        if (cacheService.containsKey(ALL_NATIONS)) {
-            cacheService.remove(ALL_NATIONS);
-        }
-
-        if (cacheService.containsKey(
-                ALL_COUNTRIES_BY_NATION_ID + nation.getId())) {
-            cacheService.remove(ALL_COUNTRIES_BY_NATION_ID + nation.getId());
-        }
-
-        if (cacheService.containsKey(ALL_COUNTRIES)) {
-            cacheService.remove(ALL_COUNTRIES);
-        }
-    }
-
-    public Set<Nation> getNationsByCountryId(final Long countryId) {
-        if (cacheService.containsKey(ALL_NATIONS_BY_COUNTRY_ID + countryId)) {
-            return (Set<Nation>) cacheService
-                    .get(ALL_NATIONS_BY_COUNTRY_ID + countryId);
+        Set<NationSnapshot> cached = cacheRegions.getNationsByCountry().get(countryId);
+        if (cached != null) {
+            return cached;
         } else {
+            long ticket = cacheRegions.getNationsByCountry().ticket();
             Country country = countryRepository
                     .findCountryWithNationsById(countryId)
-                    .orElseThrow(() -> new ObjectNotFoundException(
-                            "country, which id " + countryId
-                                    + " doesn't exist, that's why "
-                                    + "you can't view nations from its"));
-            Set<Nation> nations = country.getNations();
-            cacheService.put(ALL_NATIONS_BY_COUNTRY_ID + countryId, nations);
+                    .orElseThrow(() -> countryNotFound(countryId));
+            Set<NationSnapshot> nations = country.getNations().stream()
+                    .map(NationSnapshot::of)
+                    .collect(Collectors.toUnmodifiableSet());
+            List<Dependency> dependencies = Dependency.of(Dependency.EntityType.NATION,
+                    nations.stream().map(NationSnapshot::id).toList());
+            dependencies.add(Dependency.country(countryId));
+            cacheRegions.getNationsByCountry().put(countryId, nations, dependencies, ticket);
             return nations;
         }
     }
 
-    public List<Nation> getNations() {
-        if (cacheService.containsKey(ALL_NATIONS)) {
-            return (List<Nation>) cacheService.get(ALL_NATIONS);
-        } else {
-            List<Nation> nations = nationRepository.findAll();
-            cacheService.put(ALL_NATIONS, nations);
-            return nations;
+    public List<NationSnapshot> getNations() {
+        EntityGraph graph = entityGraphs.current();
+        if (graph != null) {
+            return graph.nations();
         }
+        return cacheService.get(ALL_NATIONS, ALL_NATIONS_TTL,
+                List.of(Dependency.any(Dependency.EntityType.NATION)),
+                () -> nationRepository.findAll().stream().map(NationSnapshot::of).toList());
     }
 
-    public Set<Country> getCountriesByNationId(final Long nationId) {
+    public KeysetPage<NationSnapshot> getNationsPage(long after, int limit) {
+        EntityGraph graph = entityGraphs.current();
+        if (graph != null) {
+            return KeysetPage.of(graph.nationsAfter(after, KeysetPage.checkLimit(limit)), limit,
+                    NationSnapshot::id);
+        }
+        List<NationSnapshot> nations = nationRepository
+                .findPageAfter(after, PageRequest.ofSize(KeysetPage.checkLimit(limit)))
+                .stream()
+                .map(NationSnapshot::of)
+                .toList();
+        return KeysetPage.of(nations, limit, NationSnapshot::id);
+    }
 
-        if (cacheService.containsKey(ALL_COUNTRIES_BY_NATION_ID + nationId)) {
-            return (Set<Country>) cacheService
-                    .get(ALL_COUNTRIES_BY_NATION_ID + nationId);
+    public Set<CountrySnapshot> getCountriesByNationId(final Long nationId) {
+        EntityGraph graph = entityGraphs.current();
+        if (graph != null) {
+            Set<CountrySnapshot> countries = graph.countriesOfNation(nationId);
+            if (countries == null) {
+                throw nationNotFound(nationId);
+            }
+            return countries;
+        }
+        Set<CountrySnapshot> cached = cacheRegions.getCountriesByNation().get(nationId);
+        if (cached != null) {
+            return cached;
         } else {
+            long ticket = cacheRegions.getCountriesByNation().ticket();
             Nation nation = nationRepository
                     .findByIdWithCountriesWithCities(nationId)
-                    .orElseThrow(() -> new ObjectNotFoundException(
-                            "nation, which id " + nationId
-                                    + " does not exist, that's why "
-                                    + "you can't view countries from its"));
-            Set<Country> countries = new HashSet<>(nation.getCountries());
-            cacheService.put(ALL_COUNTRIES_BY_NATION_ID + nationId, countries);
+                    .orElseThrow(() -> nationNotFound(nationId));
+            Set<CountrySnapshot> countries = nation.getCountries().stream()
+                    .map(CountrySnapshot::of)
+                    .collect(Collectors.toUnmodifiableSet());
+            cacheRegions.getCountriesByNation().put(nationId, countries,
+                    Dependency.ofNationGraph(nationId, countries), ticket);
             return countries;
         }
     }
@@ -143,19 +161,62 @@ public class NationService {
                             + country.getName() + ".");
         }
 
-        cleanCache(nation.getId(), nation);
-
         return nation;
     }
 
-    public List<Nation> addNewNationsByCountryId(final Long countryId,
-                                          final List<Nation> nationsRequest) {
-        List<Nation> addedNations = new ArrayList<>();
+    /**
+     * Links the nations of {@code nationsRequest} to the country, creating the ones
+     * that don't exist yet in one batch, and reports the others per row: those without
+     * a name, and those the country already has or that repeat an earlier row.
+     */
+    @Transactional
+    public BulkResult<Nation> addNewNationsByCountryId(final Long countryId,
+                                                       final List<Nation> nationsRequest) {
+        if (nationsRequest == null) {
+            throw new IllegalArgumentException("Nations request cannot be null");
+        }
+        Country country = countryRepository
+                .findCountryWithNationsById(countryId)
+                .orElseThrow(() -> new ObjectNotFoundException(
+                        "country, which id " + countryId
+                                + " doesn't exist, that is why "
+                                + "you can't add nation to its"));
 
-        nationsRequest.forEach(nation -> addedNations
-                .add(addNewNationByCountryId(countryId, nation)));
+        Set<String> names = nationsRequest.stream()
+                .filter(Objects::nonNull)
+                .map(Nation::getName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Nation> existing = names.isEmpty() ? Map.of()
+                : nationRepository.findByNameIn(names).stream().collect(Collectors.toMap(
+                        Nation::getName, Function.identity(), (first, second) -> first));
+        Set<String> linked = country.getNations().stream()
+                .map(Nation::getName)
+                .collect(Collectors.toCollection(HashSet::new));
+        List<Nation> added = new ArrayList<>();
+        List<Nation> created = new ArrayList<>();
+        List<BulkResult.RowError> errors = new ArrayList<>();
+        for (int i = 0; i < nationsRequest.size(); i++) {
+            Nation nation = nationsRequest.get(i);
+            String name = nation == null ? null : nation.getName();
+            if (name == null || name.isBlank()) {
+                errors.add(new BulkResult.RowError(i, name, "Nation name cannot be empty"));
+            } else if (!linked.add(name)) {
+                errors.add(new BulkResult.RowError(i, name, "nation with name " + name
+                        + " already exists in the country " + country.getName() + "."));
+            } else if (existing.containsKey(name)) {
+                added.add(existing.get(name));
+            } else {
+                nation.setId(null);
+                created.add(nation);
+                added.add(nation);
+            }
+        }
 
-        return addedNations;
+        nationRepository.saveAll(created);
+        country.getNations().addAll(added);
+        countryRepository.save(country);
+        return new BulkResult<>(added, errors);
     }
 
     @Transactional
@@ -169,8 +230,6 @@ public class NationService {
                                 + " does not exist, that is why "
                                 + "you can't update this"));
 
-        cleanCache(nationId, nation);
-
         if (name != null && !name.isEmpty()
                 && !Objects.equals(nation.getName(), name)) {
             Optional<Nation> nationOptional = Optional
@@ -198,23 +257,20 @@ public class NationService {
     @Transactional
     public void deleteNation(final Long nationId) {
 
-        Nation nation = nationRepository.findByIdWithCountries(nationId)
-                .orElseThrow(() -> new ObjectNotFoundException(
-                        "nation, which id " + nationId
-                                + " doesn't exist, that is why "
-                                + "you can't delete its"));
-
-        cleanCache(nationId, nation);
-
-        List<Country> countries = countryRepository
-                .findCountriesWithNationsByNationByNationId(nationId);
-
-        for (Country country : countries) {
-            country.getNations().remove(nation);
-            countryRepository.save(country);
+        if (!nationRepository.existsById(nationId)) {
+            throw new ObjectNotFoundException(
+                    "nation, which id " + nationId
+                            + " doesn't exist, that is why "
+                            + "you can't delete its");
         }
 
-        nationRepository.delete(nation);
+        List<Long> countryIds = nationRepository.findCountryIdsById(nationId);
+        nationRepository.unlinkCountries(nationId);
+        nationRepository.deleteAllByIdInBatch(List.of(nationId));
+
+        List<Dependency> changed = Dependency.of(Dependency.EntityType.COUNTRY, countryIds);
+        changed.add(Dependency.nation(nationId));
+        dependencyGraph.invalidate(changed);
     }
 
     @Transactional
@@ -234,11 +290,19 @@ public class NationService {
                                 + " does not exist, that's why "
                                 + "you can't delete its"));
 
-        cleanCache(nationId, nation);
-
         country.getNations().remove(nation);
         countryRepository.save(country);
     }
 
+    private static ObjectNotFoundException countryNotFound(final Long countryId) {
+        return new ObjectNotFoundException("country, which id " + countryId
+                + " doesn't exist, that's why you can't view nations from its");
+    }
+
+    private static ObjectNotFoundException nationNotFound(final Long nationId) {
+        return new ObjectNotFoundException("nation, which id " + nationId
+                + " does not exist, that's why you can't view countries from its");
+    }
+
 
 }
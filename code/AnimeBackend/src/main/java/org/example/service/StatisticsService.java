@@ -0,0 +1,279 @@
+package org.example.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.example.cache.CacheDependencyGraph;
+import org.example.cache.Dependency;
+import org.example.dto.CityFigures;
+import org.example.dto.CountryNationLink;
+import org.example.dto.CountryStatistics;
+import org.example.dto.GroupStatistics;
+import org.example.dto.NationStatistics;
+import org.example.dto.StatisticsSummary;
+import org.example.exception.ObjectNotFoundException;
+import org.example.model.Country;
+import org.example.model.Nation;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.example.statistics.StatisticsAggregates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serves statistics from {@link StatisticsAggregates} instead of loading the country
+ * graph. The aggregates are built from the database on startup and then kept current
+ * from the committed changes the {@link CacheDependencyGraph} reports, on this node or
+ * any other: every write path, the bulk deletes and nation links included, reports
+ * the ids it touched, and only those rows are re-read on the
+ * {@code indexUpdateExecutor} and applied as deltas. Reads may trail a write by that
+ * one batch; a batch that fails to load is retried a few seconds later. A full
+ * rebuild runs every {@code statistics.rebuild-interval} or on request, to recover
+ * from anything the deltas missed.
+ */
+@Service
+public class StatisticsService implements CacheDependencyGraph.ChangeListener {
+    private static final int RELOAD_BATCH = 1000;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsService.class);
+
+    private final CountryRepository countryRepository;
+    private final CityRepository cityRepository;
+    private final NationRepository nationRepository;
+    private final Executor indexUpdateExecutor;
+    private final TaskScheduler scheduler;
+    private final Duration rebuildInterval;
+    private final Map<Dependency.EntityType, Set<Long>> changed =
+            new EnumMap<>(Dependency.EntityType.class);
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Object updateLock = new Object();
+    private volatile StatisticsAggregates aggregates;
+    private volatile boolean stale = true;
+
+    public StatisticsService(CountryRepository countryRepository, CityRepository cityRepository,
+                             NationRepository nationRepository,
+                             CacheDependencyGraph dependencyGraph,
+                             @Qualifier("indexUpdateExecutor") Executor indexUpdateExecutor,
+                             @Qualifier("cacheMaintenanceScheduler") TaskScheduler scheduler,
+                             @Value("${statistics.rebuild-interval:6h}") Duration rebuildInterval) {
+        this.countryRepository = countryRepository;
+        this.cityRepository = cityRepository;
+        this.nationRepository = nationRepository;
+        this.indexUpdateExecutor = indexUpdateExecutor;
+        this.scheduler = scheduler;
+        this.rebuildInterval = rebuildInterval;
+        for (Dependency.EntityType type : Dependency.EntityType.values()) {
+            changed.put(type, ConcurrentHashMap.newKeySet());
+        }
+        dependencyGraph.addListener(this);
+    }
+
+    public StatisticsSummary getSummary() {
+        return current().summary();
+    }
+
+    public List<CountryStatistics> getCountries() {
+        return current().countries();
+    }
+
+    public CountryStatistics getCountry(Long countryId) {
+        CountryStatistics statistics = current().country(countryId);
+        if (statistics == null) {
+            throw new ObjectNotFoundException("Country not found");
+        }
+        return statistics;
+    }
+
+    public List<NationStatistics> getNations() {
+        return current().nations();
+    }
+
+    public List<GroupStatistics> getLanguages() {
+        return current().languages();
+    }
+
+    public List<GroupStatistics> getReligions() {
+        return current().religions();
+    }
+
+    /** Schedules a rebuild of every aggregate from the database. */
+    public void rebuild() {
+        stale = true;
+        schedule();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        schedule();
+        scheduler.scheduleWithFixedDelay(this::rebuild, Instant.now().plus(rebuildInterval),
+                rebuildInterval);
+    }
+
+    @Override
+    public void changed(Set<Dependency> dependencies) {
+        boolean queued = false;
+        for (Dependency dependency : dependencies) {
+            if (dependency.isEntity()) {
+                queued |= changed.get(dependency.type()).add(dependency.id());
+            }
+        }
+        if (queued) {
+            schedule();
+        }
+    }
+
+    @Override
+    public void reset() {
+        rebuild();
+    }
+
+    private StatisticsAggregates current() {
+        StatisticsAggregates current = aggregates;
+        if (current == null) {
+            synchronized (updateLock) {
+                if (aggregates == null) {
+                    load();
+                }
+                current = aggregates;
+            }
+        }
+        return current;
+    }
+
+    private void schedule() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            indexUpdateExecutor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        boolean failed = false;
+        try {
+            synchronized (updateLock) {
+                if (stale || aggregates == null) {
+                    load();
+                } else {
+                    applyChanges(aggregates);
+                }
+            }
+        } catch (RuntimeException e) {
+            failed = true;
+            logger.warn("Statistics not updated: {}", e.getMessage());
+        } finally {
+            drainScheduled.set(false);
+        }
+        if (failed) {
+            scheduler.schedule(this::schedule, Instant.now().plus(RETRY_DELAY));
+        } else if (changed.values().stream().anyMatch(ids -> !ids.isEmpty())) {
+            schedule();
+        }
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        stale = false;
+        changed.values().forEach(Set::clear);
+        try {
+            StatisticsAggregates built = new StatisticsAggregates();
+            nationRepository.findAll().forEach(built::putNation);
+            countryRepository.findAll().forEach(built::putCountry);
+            countryRepository.findAllNationLinks().stream()
+                    .collect(Collectors.groupingBy(CountryNationLink::countryId,
+                            Collectors.mapping(CountryNationLink::nationId, Collectors.toList())))
+                    .forEach(built::setNationLinks);
+            cityRepository.findAllFigures().forEach(built::putCity);
+            aggregates = built;
+        } catch (RuntimeException e) {
+            stale = true;
+            throw e;
+        }
+        logger.info("📊 Statistics rebuilt from DB in {} ms",
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void applyChanges(StatisticsAggregates target) {
+        List<Long> nationIds = take(Dependency.EntityType.NATION);
+        List<Long> countryIds = take(Dependency.EntityType.COUNTRY);
+        List<Long> cityIds = take(Dependency.EntityType.CITY);
+        try {
+            reloadNations(target, nationIds);
+            reloadCountries(target, countryIds);
+            reloadCities(target, cityIds);
+        } catch (RuntimeException e) {
+            changed.get(Dependency.EntityType.NATION).addAll(nationIds);
+            changed.get(Dependency.EntityType.COUNTRY).addAll(countryIds);
+            changed.get(Dependency.EntityType.CITY).addAll(cityIds);
+            throw e;
+        }
+    }
+
+    private List<Long> take(Dependency.EntityType type) {
+        Set<Long> queued = changed.get(type);
+        List<Long> batch = new ArrayList<>(Math.min(queued.size(), RELOAD_BATCH));
+        for (Long id : queued) {
+            batch.add(id);
+            if (batch.size() == RELOAD_BATCH) {
+                break;
+            }
+        }
+        queued.removeAll(batch);
+        return batch;
+    }
+
+    private void reloadNations(StatisticsAggregates target, List<Long> nationIds) {
+        if (nationIds.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(nationIds);
+        for (Nation nation : nationRepository.findAllById(nationIds)) {
+            target.putNation(nation);
+            missing.remove(nation.getId());
+        }
+        missing.forEach(target::removeNation);
+    }
+
+    private void reloadCountries(StatisticsAggregates target, List<Long> countryIds) {
+        if (countryIds.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Long>> links = countryRepository.findNationLinksByCountryIdIn(countryIds)
+                .stream()
+                .collect(Collectors.groupingBy(CountryNationLink::countryId,
+                        Collectors.mapping(CountryNationLink::nationId, Collectors.toList())));
+        Set<Long> missing = new HashSet<>(countryIds);
+        for (Country country : countryRepository.findAllById(countryIds)) {
+            target.putCountry(country);
+            target.setNationLinks(country.getId(), links.getOrDefault(country.getId(), List.of()));
+            missing.remove(country.getId());
+        }
+        missing.forEach(target::removeCountry);
+    }
+
+    private void reloadCities(StatisticsAggregates target, List<Long> cityIds) {
+        if (cityIds.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(cityIds);
+        for (CityFigures city : cityRepository.findFiguresByIdIn(cityIds)) {
+            target.putCity(city);
+            missing.remove(city.id());
+        }
+        missing.forEach(target::removeCity);
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.snapshot;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+import org.example.dto.CitySnapshot;
+import org.example.dto.CountryNationLink;
+import org.example.dto.CountrySnapshot;
+import org.example.dto.NationSnapshot;
+import org.example.model.City;
+import org.example.model.Country;
+import org.example.model.Nation;
+
+/**
+ * Immutable, array-based copy of every country, city and nation. Each kind is held in
+ * id order: a sorted {@code long[]} of ids found by binary search, and the snapshots
+ * served for them at the same positions. Relations are position lists in compressed
+ * sparse row form: the cities and nations of the country at position {@code i} are at
+ * {@code [start[i], start[i + 1])} of one shared {@code int[]}, built from the
+ * position of each city's country. Nothing here is ever changed after it is built, so any
+ * number of readers can use a graph while a newer one is built.
+ */
+public final class EntityGraph {
+    private static final int NONE = -1;
+
+    private final long[] countryIds;
+    private final CountrySnapshot[] countries;
+    private final long[] cityIds;
+    private final CitySnapshot[] cities;
+    private final long[] nationIds;
+    private final NationSnapshot[] nations;
+    private final Adjacency countryCities;
+    private final Adjacency countryNations;
+    private final Adjacency nationCountries;
+    private final List<CountrySnapshot> countryList;
+    private final List<CitySnapshot> cityList;
+    private final List<NationSnapshot> nationList;
+
+    private EntityGraph(List<Country> countryRows, List<City> cityRows, List<Nation> nationRows,
+                        List<CountryNationLink> links) {
+        Country[] sortedCountries = sortedById(countryRows, Country::getId, Country[]::new);
+        City[] sortedCities = sortedById(cityRows, City::getId, City[]::new);
+        Nation[] sortedNations = sortedById(nationRows, Nation::getId, Nation[]::new);
+        countryIds = Arrays.stream(sortedCountries).mapToLong(Country::getId).toArray();
+        cityIds = Arrays.stream(sortedCities).mapToLong(City::getId).toArray();
+        nationIds = Arrays.stream(sortedNations).mapToLong(Nation::getId).toArray();
+
+        int[] cityCountry = new int[cityIds.length];
+        for (int city = 0; city < cityIds.length; city++) {
+            Country country = sortedCities[city].getCountry();
+            cityCountry[city] = country == null ? NONE : position(countryIds, country.getId());
+        }
+        countryCities = Adjacency.of(countryIds.length, cityCountry, identity(cityIds.length));
+
+        int[] linkCountries = new int[links.size()];
+        int[] linkNations = new int[links.size()];
+        for (int i = 0; i < links.size(); i++) {
+            linkCountries[i] = position(countryIds, links.get(i).countryId());
+            linkNations[i] = position(nationIds, links.get(i).nationId());
+            if (linkCountries[i] == NONE || linkNations[i] == NONE) {
+                linkCountries[i] = NONE;
+                linkNations[i] = NONE;
+            }
+        }
+        countryNations = Adjacency.of(countryIds.length, linkCountries, linkNations);
+        nationCountries = Adjacency.of(nationIds.length, linkNations, linkCountries);
+
+        CountrySnapshot[] summaries = new CountrySnapshot[countryIds.length];
+        countries = new CountrySnapshot[countryIds.length];
+        for (int country = 0; country < countryIds.length; country++) {
+            Country row = sortedCountries[country];
+            summaries[country] = CountrySnapshot.summaryOf(row);
+            countries[country] = new CountrySnapshot(row.getId(), row.getName(),
+                    row.getCapital(), row.getPopulation(), row.getAreaSquareKm(), row.getGdp(),
+                    countryCities.ids(country, cityIds), countryNations.ids(country, nationIds));
+        }
+        cities = new CitySnapshot[cityIds.length];
+        for (int city = 0; city < cityIds.length; city++) {
+            cities[city] = CitySnapshot.of(sortedCities[city],
+                    cityCountry[city] == NONE ? null : summaries[cityCountry[city]]);
+        }
+        nations = new NationSnapshot[nationIds.length];
+        for (int nation = 0; nation < nationIds.length; nation++) {
+            nations[nation] = NationSnapshot.of(sortedNations[nation]);
+        }
+        countryList = List.of(countries);
+        cityList = List.of(cities);
+        nationList = List.of(nations);
+    }
+
+    /**
+     * A graph of the given rows. Cities must have their country loaded; links to a
+     * country or nation missing from the rows are ignored.
+     */
+    public static EntityGraph of(List<Country> countries, List<City> cities,
+                                 List<Nation> nations, List<CountryNationLink> links) {
+        return new EntityGraph(countries, cities, nations, links);
+    }
+
+    /** Every country in id order. */
+    public List<CountrySnapshot> countries() {
+        return countryList;
+    }
+
+    /** The country with {@code id}, or {@code null} if there is none. */
+    public CountrySnapshot country(long id) {
+        int country = position(countryIds, id);
+        return country == NONE ? null : countries[country];
+    }
+
+    /** Up to {@code limit} countries with ids above {@code after}, in id order. */
+    public List<CountrySnapshot> countriesAfter(long after, int limit) {
+        return page(countryList, countryIds, after, limit);
+    }
+
+    /** The countries of the nation with {@code id}, or {@code null} if there is none. */
+    public Set<CountrySnapshot> countriesOfNation(long id) {
+        int nation = position(nationIds, id);
+        return nation == NONE ? null : nationCountries.values(nation, countries);
+    }
+
+    /** Every city in id order. */
+    public List<CitySnapshot> cities() {
+        return cityList;
+    }
+
+    /** Up to {@code limit} cities with ids above {@code after}, in id order. */
+    public List<CitySnapshot> citiesAfter(long after, int limit) {
+        return page(cityList, cityIds, after, limit);
+    }
+
+    /** The cities of the country with {@code id}, or {@code null} if there is none. */
+    public Set<CitySnapshot> citiesOfCountry(long id) {
+        int country = position(countryIds, id);
+        return country == NONE ? null : countryCities.values(country, cities);
+    }
+
+    /** Every nation in id order. */
+    public List<NationSnapshot> nations() {
+        return nationList;
+    }
+
+    /** Up to {@code limit} nations with ids above {@code after}, in id order. */
+    public List<NationSnapshot> nationsAfter(long after, int limit) {
+        return page(nationList, nationIds, after, limit);
+    }
+
+    /** The nations of the country with {@code id}, or {@code null} if there is none. */
+    public Set<NationSnapshot> nationsOfCountry(long id) {
+        int country = position(countryIds, id);
+        return country == NONE ? null : countryNations.values(country, nations);
+    }
+
+    private static <T> List<T> page(List<T> all, long[] ids, long after, int limit) {
+        int found = Arrays.binarySearch(ids, after);
+        int from = found >= 0 ? found + 1 : -found - 1;
+        return all.subList(from, Math.min(from + limit, all.size()));
+    }
+
+    private static int position(long[] ids, long id) {
+        int found = Arrays.binarySearch(ids, id);
+        return found >= 0 ? found : NONE;
+    }
+
+    private static int[] identity(int size) {
+        int[] positions = new int[size];
+        Arrays.setAll(positions, i -> i);
+        return positions;
+    }
+
+    private static <T> T[] sortedById(List<T> rows, ToLongFunction<T> idOf,
+                                      IntFunction<T[]> newArray) {
+        T[] sorted = rows.toArray(newArray.apply(rows.size()));
+        Arrays.sort(sorted, Comparator.comparingLong(idOf));
+        return sorted;
+    }
+
+    /**
+     * Targets of one relation grouped by source position: those of source {@code i}
+     * are {@code targets[starts[i]]} up to {@code targets[starts[i + 1]]}, in order.
+     */
+    private record Adjacency(int[] starts, int[] targets) {
+
+        /** Groups the pairs {@code (sources[k], targets[k])}, skipping {@link #NONE}s. */
+        static Adjacency of(int sourceCount, int[] sources, int[] targets) {
+            int[] starts = new int[sourceCount + 1];
+            for (int source : sources) {
+                if (source != NONE) {
+                    starts[source + 1]++;
+                }
+            }
+            for (int i = 0; i < sourceCount; i++) {
+                starts[i + 1] += starts[i];
+            }
+            int[] grouped = new int[starts[sourceCount]];
+            int[] next = Arrays.copyOf(starts, sourceCount);
+            for (int k = 0; k < sources.length; k++) {
+                if (sources[k] != NONE) {
+                    grouped[next[sources[k]]++] = targets[k];
+                }
+            }
+            return new Adjacency(starts, grouped);
+        }
+
+        long[] ids(int source, long[] ids) {
+            long[] result = new long[starts[source + 1] - starts[source]];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = ids[targets[starts[source] + i]];
+            }
+            return result;
+        }
+
+        <T> Set<T> values(int source, T[] values) {
+            Set<T> result = new LinkedHashSet<>();
+            for (int i = starts[source]; i < starts[source + 1]; i++) {
+                result.add(values[targets[i]]);
+            }
+            return Collections.unmodifiableSet(result);
+        }
+    }
+}
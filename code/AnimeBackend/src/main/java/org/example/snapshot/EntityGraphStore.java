@@ -0,0 +1,124 @@
+package org.example.snapshot;
+
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.example.cache.CacheDependencyGraph;
+import org.example.cache.Dependency;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the current {@link EntityGraph} when snapshot mode is on
+ * ({@code snapshot.enabled=true}). Every committed write the
+ * {@link CacheDependencyGraph} reports, on this node or any other, bumps a version;
+ * the graph is then rebuilt on the {@code indexUpdateExecutor} and swapped in whole.
+ * Writes during a rebuild are coalesced into the next one. Until the graph matches
+ * the latest version {@link #current()} returns {@code null} and services read through
+ * JPA as usual, so a client never reads a graph older than its own write.
+ */
+@Component
+public class EntityGraphStore implements CacheDependencyGraph.ChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(EntityGraphStore.class);
+
+    private final CountryRepository countryRepository;
+    private final CityRepository cityRepository;
+    private final NationRepository nationRepository;
+    private final Executor indexUpdateExecutor;
+    private final boolean enabled;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private volatile Versioned current;
+
+    public EntityGraphStore(CountryRepository countryRepository, CityRepository cityRepository,
+                            NationRepository nationRepository,
+                            CacheDependencyGraph dependencyGraph,
+                            @Qualifier("indexUpdateExecutor") Executor indexUpdateExecutor,
+                            @Value("${snapshot.enabled:false}") boolean enabled) {
+        this.countryRepository = countryRepository;
+        this.cityRepository = cityRepository;
+        this.nationRepository = nationRepository;
+        this.indexUpdateExecutor = indexUpdateExecutor;
+        this.enabled = enabled;
+        if (enabled) {
+            dependencyGraph.addListener(this);
+        }
+    }
+
+    /**
+     * The graph as of the last committed write, or {@code null} if snapshot mode is
+     * off or the graph is still being rebuilt.
+     */
+    public EntityGraph current() {
+        if (!enabled) {
+            return null;
+        }
+        Versioned graph = current;
+        if (graph != null && graph.version() == version.get()) {
+            return graph.graph();
+        }
+        schedule();
+        return null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            schedule();
+        }
+    }
+
+    @Override
+    public void changed(Set<Dependency> dependencies) {
+        version.incrementAndGet();
+        schedule();
+    }
+
+    @Override
+    public void reset() {
+        version.incrementAndGet();
+        schedule();
+    }
+
+    private void schedule() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            indexUpdateExecutor.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        long building = version.get();
+        boolean built = false;
+        try {
+            long start = System.nanoTime();
+            EntityGraph graph = EntityGraph.of(countryRepository.findAll(),
+                    cityRepository.findAllWithCountry(), nationRepository.findAll(),
+                    countryRepository.findAllNationLinks());
+            current = new Versioned(graph, building);
+            built = true;
+            logger.info("📸 Entity graph snapshot built with {} countries, {} cities and {}"
+                            + " nations in {} ms", graph.countries().size(),
+                    graph.cities().size(), graph.nations().size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.warn("Entity graph snapshot not built: {}", e.getMessage());
+        } finally {
+            rebuildScheduled.set(false);
+        }
+        if (built && building != version.get()) {
+            schedule();
+        }
+    }
+
+    private record Versioned(EntityGraph graph, long version) {
+    }
+}
@@ -0,0 +1,344 @@
+package org.example.statistics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.example.dto.CityFigures;
+import org.example.dto.CountryStatistics;
+import org.example.dto.GroupStatistics;
+import org.example.dto.NationStatistics;
+import org.example.dto.StatisticsSummary;
+import org.example.model.Country;
+import org.example.model.Nation;
+
+/**
+ * Materialized counters over countries, cities and nations. Each change is applied
+ * as a delta: the figures last counted for a city, and the nations last linked to a
+ * country, are kept so that re-putting a row only subtracts its old contribution and
+ * adds the new one. Reads never scan rows. Countries per language and religion are
+ * reference counts per country, so a country with two nations speaking one language
+ * is counted once. Rows may be applied in any order; a city or link naming a row not
+ * seen yet holds a placeholder for it until it arrives. Reads share a read lock,
+ * changes take the write lock.
+ */
+public class StatisticsAggregates {
+    private static final Comparator<GroupStatistics> BY_COUNTRIES = Comparator
+            .comparingInt(GroupStatistics::countries).reversed()
+            .thenComparing(GroupStatistics::value);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, CountryTotals> countries = new HashMap<>();
+    private final Map<Long, CityFigures> cities = new HashMap<>();
+    private final Map<Long, NationTotals> nations = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> countriesByLanguage = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> countriesByReligion = new HashMap<>();
+    private int presentCountries;
+    private int presentNations;
+    private double cityPopulation;
+    private double cityAreaSquareKm;
+
+    public void putCountry(Country country) {
+        lock.writeLock().lock();
+        try {
+            CountryTotals totals = countries.computeIfAbsent(country.getId(), CountryTotals::new);
+            if (!totals.present) {
+                totals.present = true;
+                presentCountries++;
+            }
+            totals.name = country.getName();
+            totals.population = country.getPopulation();
+            totals.gdp = country.getGdp();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeCountry(long countryId) {
+        lock.writeLock().lock();
+        try {
+            CountryTotals totals = countries.get(countryId);
+            if (totals == null) {
+                return;
+            }
+            relink(totals, Set.of());
+            if (totals.present) {
+                totals.present = false;
+                presentCountries--;
+            }
+            dropIfUnused(totals);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Replaces the nations linked to a country. */
+    public void setNationLinks(long countryId, Collection<Long> nationIds) {
+        lock.writeLock().lock();
+        try {
+            CountryTotals totals = countries.computeIfAbsent(countryId, CountryTotals::new);
+            relink(totals, new HashSet<>(nationIds));
+            dropIfUnused(totals);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putCity(CityFigures city) {
+        lock.writeLock().lock();
+        try {
+            subtract(cities.put(city.id(), city));
+            cityPopulation += valueOf(city.population());
+            cityAreaSquareKm += valueOf(city.areaSquareKm());
+            if (city.countryId() != null) {
+                CountryTotals totals = countries.computeIfAbsent(city.countryId(),
+                        CountryTotals::new);
+                totals.cities++;
+                totals.cityPopulation += valueOf(city.population());
+                totals.cityAreaSquareKm += valueOf(city.areaSquareKm());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeCity(long cityId) {
+        lock.writeLock().lock();
+        try {
+            subtract(cities.remove(cityId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putNation(Nation nation) {
+        lock.writeLock().lock();
+        try {
+            NationTotals totals = nations.computeIfAbsent(nation.getId(), NationTotals::new);
+            if (!totals.present) {
+                totals.present = true;
+                presentNations++;
+            }
+            totals.name = nation.getName();
+            for (long countryId : totals.countryIds) {
+                count(countriesByLanguage, totals.language, countryId, -1);
+                count(countriesByReligion, totals.religion, countryId, -1);
+                count(countriesByLanguage, nation.getLanguage(), countryId, 1);
+                count(countriesByReligion, nation.getReligion(), countryId, 1);
+            }
+            totals.language = nation.getLanguage();
+            totals.religion = nation.getReligion();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeNation(long nationId) {
+        lock.writeLock().lock();
+        try {
+            NationTotals totals = nations.get(nationId);
+            if (totals == null) {
+                return;
+            }
+            for (long countryId : List.copyOf(totals.countryIds)) {
+                CountryTotals country = countries.get(countryId);
+                if (country != null) {
+                    unlink(country, nationId);
+                    dropIfUnused(country);
+                }
+            }
+            if (totals.present) {
+                totals.present = false;
+                presentNations--;
+            }
+            dropIfUnused(totals);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public StatisticsSummary summary() {
+        lock.readLock().lock();
+        try {
+            return new StatisticsSummary(presentCountries, cities.size(), presentNations,
+                    cityPopulation, cityAreaSquareKm);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Statistics of one country, or {@code null} if there is no such country. */
+    public CountryStatistics country(long countryId) {
+        lock.readLock().lock();
+        try {
+            CountryTotals totals = countries.get(countryId);
+            return totals == null || !totals.present ? null : totals.toStatistics();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Statistics of every country, in id order. */
+    public List<CountryStatistics> countries() {
+        lock.readLock().lock();
+        try {
+            return countries.values().stream()
+                    .filter(totals -> totals.present)
+                    .sorted(Comparator.comparingLong(totals -> totals.id))
+                    .map(CountryTotals::toStatistics)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Country counts of every nation, in id order. */
+    public List<NationStatistics> nations() {
+        lock.readLock().lock();
+        try {
+            return nations.values().stream()
+                    .filter(totals -> totals.present)
+                    .sorted(Comparator.comparingLong(totals -> totals.id))
+                    .map(totals -> new NationStatistics(totals.id, totals.name,
+                            totals.countryIds.size()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Country counts per nation language, most countries first. */
+    public List<GroupStatistics> languages() {
+        return groups(countriesByLanguage);
+    }
+
+    /** Country counts per nation religion, most countries first. */
+    public List<GroupStatistics> religions() {
+        return groups(countriesByReligion);
+    }
+
+    private List<GroupStatistics> groups(Map<String, Map<Long, Integer>> countriesByValue) {
+        lock.readLock().lock();
+        try {
+            List<GroupStatistics> groups = new ArrayList<>(countriesByValue.size());
+            countriesByValue.forEach((value, countryIds) ->
+                    groups.add(new GroupStatistics(value, countryIds.size())));
+            groups.sort(BY_COUNTRIES);
+            return groups;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void subtract(CityFigures city) {
+        if (city == null) {
+            return;
+        }
+        cityPopulation -= valueOf(city.population());
+        cityAreaSquareKm -= valueOf(city.areaSquareKm());
+        CountryTotals totals = city.countryId() == null ? null : countries.get(city.countryId());
+        if (totals != null) {
+            totals.cities--;
+            totals.cityPopulation -= valueOf(city.population());
+            totals.cityAreaSquareKm -= valueOf(city.areaSquareKm());
+            dropIfUnused(totals);
+        }
+    }
+
+    private void relink(CountryTotals country, Set<Long> nationIds) {
+        for (long nationId : List.copyOf(country.nationIds)) {
+            if (!nationIds.contains(nationId)) {
+                unlink(country, nationId);
+            }
+        }
+        for (long nationId : nationIds) {
+            if (country.nationIds.add(nationId)) {
+                NationTotals nation = nations.computeIfAbsent(nationId, NationTotals::new);
+                nation.countryIds.add(country.id);
+                count(countriesByLanguage, nation.language, country.id, 1);
+                count(countriesByReligion, nation.religion, country.id, 1);
+            }
+        }
+    }
+
+    private void unlink(CountryTotals country, long nationId) {
+        country.nationIds.remove(nationId);
+        NationTotals nation = nations.get(nationId);
+        if (nation != null && nation.countryIds.remove(country.id)) {
+            count(countriesByLanguage, nation.language, country.id, -1);
+            count(countriesByReligion, nation.religion, country.id, -1);
+            dropIfUnused(nation);
+        }
+    }
+
+    private void dropIfUnused(CountryTotals totals) {
+        if (!totals.present && totals.cities == 0 && totals.nationIds.isEmpty()) {
+            countries.remove(totals.id);
+        }
+    }
+
+    private void dropIfUnused(NationTotals totals) {
+        if (!totals.present && totals.countryIds.isEmpty()) {
+            nations.remove(totals.id);
+        }
+    }
+
+    private static void count(Map<String, Map<Long, Integer>> countriesByValue, String value,
+                              long countryId, int delta) {
+        if (value == null) {
+            return;
+        }
+        Map<Long, Integer> references = countriesByValue.computeIfAbsent(value,
+                v -> new HashMap<>());
+        references.merge(countryId, delta, (old, added) -> old + added == 0 ? null : old + added);
+        if (references.isEmpty()) {
+            countriesByValue.remove(value);
+        }
+    }
+
+    private static double valueOf(Double value) {
+        return value == null || value.isNaN() ? 0 : value;
+    }
+
+    private static final class CountryTotals {
+        private final long id;
+        private boolean present;
+        private String name;
+        private Double population;
+        private Double gdp;
+        private int cities;
+        private double cityPopulation;
+        private double cityAreaSquareKm;
+        private final Set<Long> nationIds = new HashSet<>();
+
+        CountryTotals(long id) {
+            this.id = id;
+        }
+
+        CountryStatistics toStatistics() {
+            double people = population != null && population > 0 ? population : cityPopulation;
+            Double gdpPerCapita = gdp != null && people > 0 ? gdp / people : null;
+            return new CountryStatistics(id, name, cities, cityPopulation, cityAreaSquareKm,
+                    nationIds.size(), gdpPerCapita);
+        }
+    }
+
+    private static final class NationTotals {
+        private final long id;
+        private boolean present;
+        private String name;
+        private String language;
+        private String religion;
+        private final Set<Long> countryIds = new HashSet<>();
+
+        NationTotals(long id) {
+            this.id = id;
+        }
+    }
+}